@@ -0,0 +1,104 @@
+-- Overlap query benchmark on 1M seeded bookings (MySQL 8.0.18+ for EXPLAIN ANALYZE).
+--
+-- Start the application once against the tbs database so Hibernate has created the
+-- bookings indexes, then run:
+--   mysql -h 127.0.0.1 -P 3307 -u root -p < bench/booking-overlap-explain.sql
+--
+-- Works on a copy in tbs_bench; the application's data is not touched. The copy has the
+-- same columns and indexes as tbs.bookings but no foreign keys.
+
+CREATE DATABASE IF NOT EXISTS tbs_bench;
+USE tbs_bench;
+
+DROP TABLE IF EXISTS bookings;
+CREATE TABLE bookings LIKE tbs.bookings;
+
+DROP TABLE IF EXISTS digits;
+CREATE TABLE digits (d INT PRIMARY KEY);
+INSERT INTO digits VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+-- 2,000 tractors x 500 bookings, one every ~35 hours per tractor (about two years),
+-- lasting 1-8 hours; roughly 10% cancelled and 10% denied
+INSERT INTO bookings (user_id, tractor_id, start_at, end_at, status, admin_status, total_amount,
+                      retrieval_reminder_sent, commission_amount, payment_released)
+SELECT 1 + seq.n % 5000,
+       1 + seq.n % 2000,
+       TIMESTAMP('2025-01-01 06:00:00') + INTERVAL ((seq.n DIV 2000) * 35 + seq.n % 7) HOUR,
+       TIMESTAMP('2025-01-01 06:00:00') + INTERVAL ((seq.n DIV 2000) * 35 + seq.n % 7 + 1 + seq.n % 8) HOUR,
+       ELT(1 + seq.n % 10, 'COMPLETED', 'COMPLETED', 'COMPLETED', 'COMPLETED', 'PAID',
+           'DELIVERED', 'PENDING', 'PENDING', 'REFUND_REQUESTED', 'CANCELLED'),
+       ELT(1 + (seq.n DIV 10) % 10, 'APPROVED', 'APPROVED', 'APPROVED', 'APPROVED', 'APPROVED',
+           'APPROVED', 'APPROVED', 'PENDING_APPROVAL', 'DENIED', NULL),
+       1500.0, FALSE, 225.0, FALSE
+FROM (
+    SELECT a.d + 10 * b.d + 100 * c.d + 1000 * e.d + 10000 * f.d + 100000 * g.d AS n
+    FROM digits a, digits b, digits c, digits e, digits f, digits g
+) seq;
+
+DROP TABLE digits;
+ANALYZE TABLE bookings;
+
+SET @tractor = 1234;
+SET @startAt = TIMESTAMP('2025-09-10 08:00:00');
+SET @endAt = TIMESTAMP('2025-09-10 18:00:00');
+
+-- 1. Previous three-way OR form, as generated from findOverlappingBookings before the rewrite
+EXPLAIN ANALYZE
+SELECT * FROM bookings b
+WHERE b.tractor_id = @tractor
+  AND (b.admin_status IS NULL OR b.admin_status IN ('PENDING_APPROVAL', 'APPROVED'))
+  AND b.status <> 'CANCELLED'
+  AND ((b.start_at <= @startAt AND b.end_at > @startAt)
+    OR (b.start_at < @endAt AND b.end_at >= @endAt)
+    OR (b.start_at >= @startAt AND b.end_at <= @endAt));
+
+-- 2. Canonical overlap form without the composite indexes (foreign key index on tractor_id only)
+EXPLAIN ANALYZE
+SELECT * FROM bookings b IGNORE INDEX (idx_booking_tractor_window, idx_booking_tractor_end)
+WHERE b.tractor_id = @tractor
+  AND b.status <> 'CANCELLED'
+  AND (b.admin_status IS NULL OR b.admin_status IN ('PENDING_APPROVAL', 'APPROVED'))
+  AND b.start_at < @endAt AND b.end_at > @startAt;
+
+-- 3. Canonical overlap form with idx_booking_tractor_window
+EXPLAIN ANALYZE
+SELECT * FROM bookings b
+WHERE b.tractor_id = @tractor
+  AND b.status <> 'CANCELLED'
+  AND (b.admin_status IS NULL OR b.admin_status IN ('PENDING_APPROVAL', 'APPROVED'))
+  AND b.start_at < @endAt AND b.end_at > @startAt;
+
+-- 4. Unit-holding overlap read used by the availability calendar and capacity recounts
+EXPLAIN ANALYZE
+SELECT b.id, b.tractor_id, b.start_at, b.end_at FROM bookings b
+WHERE b.tractor_id = @tractor
+  AND (b.admin_status IS NULL OR b.admin_status = 'APPROVED')
+  AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED')
+  AND (b.delivery_status IS NULL OR b.delivery_status <> 'RETURNED')
+  AND b.start_at < @endAt AND b.end_at > @startAt
+ORDER BY b.start_at;
+
+-- 5. Bulk availability checks: one range per tractor, each bounded by that tractor's windows
+EXPLAIN ANALYZE
+SELECT b.id, b.tractor_id, b.start_at, b.end_at FROM bookings b
+WHERE (b.admin_status IS NULL OR b.admin_status = 'APPROVED')
+  AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED')
+  AND (b.delivery_status IS NULL OR b.delivery_status <> 'RETURNED')
+  AND ((b.tractor_id = @tractor AND b.start_at < @endAt AND b.end_at > @startAt)
+    OR (b.tractor_id = @tractor + 1 AND b.start_at < @endAt + INTERVAL 30 DAY
+        AND b.end_at > @startAt + INTERVAL 29 DAY));
+
+-- 6. Active bookings of a tractor ending after now, served by idx_booking_tractor_end
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM bookings b
+WHERE b.tractor_id = @tractor
+  AND (b.admin_status IS NULL OR b.admin_status = 'APPROVED')
+  AND b.status IN ('PENDING', 'PAID', 'DELIVERED')
+  AND b.end_at > @startAt;
+
+-- Plan shape to look for: 1 and 2 examine every booking of the tractor and filter the
+-- window afterwards; 3 and 4 show "Index range scan on b using idx_booking_tractor_window
+-- over (tractor_id = 1234 AND start_at < '2025-09-10 18:00:00')" and 5 the same scan with
+-- one range per tractor, each examining only the bookings that start before its window
+-- ends. The status filters run on the rows in the range. 6 shows "Index range scan on b
+-- using idx_booking_tractor_end".
@@ -1,5 +1,6 @@
 package com.example.demo;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -10,9 +11,15 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.util.GraphRoutingProvider;
 import com.example.demo.util.HashUtil;
+import com.example.demo.util.OsrmRoutingProvider;
+import com.example.demo.util.RoutingProvider;
+import com.example.demo.util.TrackingMapper;
 
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @SpringBootApplication
 @EnableScheduling
@@ -38,6 +45,33 @@ public class DemoApplication {
         };
     }
 
+    /**
+     * Tracking routes from app.routing.provider, installed in TrackingMapper. An unknown
+     * provider or a missing graph file stops startup rather than silently using OSRM.
+     */
+    @Bean
+    public RoutingProvider routingProvider(@Value("${app.routing.provider:osrm}") String provider,
+                                           @Value("${app.routing.osrm-url:}") String osrmUrl,
+                                           @Value("${app.routing.graph-file:}") String graphFile) throws IOException {
+        RoutingProvider routingProvider = createRoutingProvider(provider, osrmUrl, graphFile);
+        TrackingMapper.setRoutingProvider(routingProvider);
+        return routingProvider;
+    }
+
+    static RoutingProvider createRoutingProvider(String provider, String osrmUrl, String graphFile) throws IOException {
+        switch (provider.trim().toLowerCase()) {
+            case "osrm":
+                return new OsrmRoutingProvider(osrmUrl == null || osrmUrl.isBlank() ? OsrmRoutingProvider.PUBLIC_BASE_URL : osrmUrl.trim());
+            case "graph":
+                if (graphFile == null || graphFile.isBlank() || !Files.isRegularFile(Path.of(graphFile.trim()))) {
+                    throw new IllegalStateException("app.routing.graph-file must name an existing road graph file, got '" + graphFile + "'");
+                }
+                return GraphRoutingProvider.load(Path.of(graphFile.trim()));
+            default:
+                throw new IllegalStateException("Unknown app.routing.provider '" + provider + "', expected osrm or graph");
+        }
+    }
+
     @Bean
     public WebMvcConfigurer staticUploads() {
         return new WebMvcConfigurer() {
@@ -9,6 +9,7 @@ import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,9 +17,16 @@ import com.example.demo.model.Booking;
 import com.example.demo.model.Tractor;
 import com.example.demo.model.User;
 import com.example.demo.repository.BookingRepository;
-import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.OwnerBookingView;
 import com.example.demo.repository.TractorRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.BookingAdmissionService;
+import com.example.demo.service.BookingIntakeService;
+import com.example.demo.service.BookingIntervalIndex;
+import com.example.demo.service.BookingListService;
+import com.example.demo.service.BookingTransitionService;
+import com.example.demo.service.BookingTransitionService.Transition;
+import com.example.demo.service.BookingWriteService;
 import com.example.demo.util.TrackingMapper;
 import com.example.demo.util.EmailService;
 
@@ -32,16 +40,28 @@ public class BookingController {
     private final BookingRepository bookingRepository;
     private final TractorRepository tractorRepository;
     private final UserRepository userRepository;
-    private final PaymentRepository paymentRepository;
     private final EmailService emailService;
+    private final BookingWriteService bookingWriteService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final BookingIntakeService bookingIntakeService;
+    private final BookingTransitionService bookingTransitionService;
+    private final BookingListService bookingListService;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a");
+    private static final int MAX_JOB_LEGS = 50;
+    private static final int MAX_FEED_PAGE = 200;
 
-    public BookingController(BookingRepository bookingRepository, TractorRepository tractorRepository, UserRepository userRepository, PaymentRepository paymentRepository, EmailService emailService) {
+    public BookingController(BookingRepository bookingRepository, TractorRepository tractorRepository, UserRepository userRepository, EmailService emailService, BookingWriteService bookingWriteService, BookingIntervalIndex bookingIntervalIndex, BookingAdmissionService bookingAdmissionService, BookingIntakeService bookingIntakeService, BookingTransitionService bookingTransitionService, BookingListService bookingListService) {
         this.bookingRepository = bookingRepository;
         this.tractorRepository = tractorRepository;
         this.userRepository = userRepository;
-        this.paymentRepository = paymentRepository;
         this.emailService = emailService;
+        this.bookingWriteService = bookingWriteService;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.bookingAdmissionService = bookingAdmissionService;
+        this.bookingIntakeService = bookingIntakeService;
+        this.bookingTransitionService = bookingTransitionService;
+        this.bookingListService = bookingListService;
     }
 
     @GetMapping
@@ -60,6 +80,42 @@ public class BookingController {
         return bookingRepository.findAll();
     }
 
+    /**
+     * The caller's bookings as flat rows, one keyset page at a time. fields picks the
+     * columns (comma separated), sort is id, startAt or endAt, and nextCursor from one
+     * page is passed as cursor for the next.
+     */
+    @GetMapping("/page")
+    public Map<String, Object> myBookingsPage(Principal principal,
+                                              @RequestParam(required = false) String status,
+                                              @RequestParam(required = false) String adminStatus,
+                                              @RequestParam(required = false) String fields,
+                                              @RequestParam(required = false) String sort,
+                                              @RequestParam(required = false) String direction,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "" + BookingListService.DEFAULT_LIMIT) int limit) {
+        User user = userRepository.findByEmail(principal.getName()).orElseThrow();
+        return bookingListService.page(user.getId(), status, adminStatus, fields, sort, direction, cursor, limit);
+    }
+
+    // Paginated, projected variant of /all (same parameters as /page)
+    @GetMapping("/all/page")
+    public ResponseEntity<?> allBookingsPage(Principal principal,
+                                             @RequestParam(required = false) String status,
+                                             @RequestParam(required = false) String adminStatus,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(required = false) String sort,
+                                             @RequestParam(required = false) String direction,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "" + BookingListService.DEFAULT_LIMIT) int limit) {
+        User user = userRepository.findByEmail(principal.getName()).orElseThrow();
+        String role = user.getRole();
+        if (!"SUPER_ADMIN".equals(role) && !"ADMIN".equals(role)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Only super admins can view all bookings"));
+        }
+        return ResponseEntity.ok(bookingListService.page(null, status, adminStatus, fields, sort, direction, cursor, limit));
+    }
+
     @GetMapping("/tractor-owner")
     public ResponseEntity<?> tractorOwnerBookings(Principal principal) {
         if (principal == null || principal.getName() == null) {
@@ -74,20 +130,48 @@ public class BookingController {
             return ResponseEntity.status(403).body(Map.of("error", "Only tractor owners can view their bookings"));
         }
         
-        // Get all tractors owned by this user
-        List<Tractor> ownerTractors = tractorRepository.findByOwner(user);
-        List<Long> tractorIds = ownerTractors.stream().map(Tractor::getId).collect(java.util.stream.Collectors.toList());
-        
-        // Get all bookings for these tractors
-        List<Booking> bookings = bookingRepository.findAll().stream()
-            .filter(b -> b.getTractor() != null && tractorIds.contains(b.getTractor().getId()))
-            .collect(java.util.stream.Collectors.toList());
+        // Get all bookings for the tractors owned by this user
+        List<Booking> bookings = bookingRepository.findByTractorOwner(user);
         
         return ResponseEntity.ok(bookings);
     }
 
+    /**
+     * Compact, paginated variant of /tractor-owner for dashboard refreshes. Pages are keyed
+     * on booking id (newest first), so a page costs the same however deep it is.
+     */
+    @GetMapping("/tractor-owner/feed")
+    public ResponseEntity<?> tractorOwnerFeed(Principal principal,
+                                              @RequestParam(required = false) String status,
+                                              @RequestParam(required = false) String adminStatus,
+                                              @RequestParam(required = false) Long before,
+                                              @RequestParam(defaultValue = "50") int limit) {
+        if (principal == null || principal.getName() == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
+        }
+        User user = userRepository.findByEmail(principal.getName()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not found"));
+        }
+        
+        if (!"TRACTOR_OWNER".equals(user.getRole())) {
+            return ResponseEntity.status(403).body(Map.of("error", "Only tractor owners can view their bookings"));
+        }
+        if (limit < 1 || limit > MAX_FEED_PAGE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_FEED_PAGE));
+        }
+        
+        List<OwnerBookingView> items = bookingRepository.findOwnerFeed(user.getId(), status, adminStatus,
+            before != null ? before : Long.MAX_VALUE, PageRequest.of(0, limit));
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", items.size() == limit ? items.get(items.size() - 1).getBookingId() : null);
+        return ResponseEntity.ok(page);
+    }
+
     @PostMapping
-    public ResponseEntity<?> create(@RequestBody Map<String, Object> body, Principal principal) {
+    public ResponseEntity<?> create(@RequestBody Map<String, Object> body, Principal principal,
+                                    @RequestHeader(value = "Prefer", required = false) String prefer) {
         Long tractorId = Long.valueOf(body.get("tractorId").toString());
         LocalDateTime startAt = LocalDateTime.parse(body.get("startAt").toString());
         LocalDateTime endAt = LocalDateTime.parse(body.get("endAt").toString());
@@ -97,13 +181,155 @@ public class BookingController {
 
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
 
+        // Get delivery location from request
+        Double deliveryLat = body.get("deliveryLatitude") != null ? 
+            Double.valueOf(body.get("deliveryLatitude").toString()) : null;
+        Double deliveryLng = body.get("deliveryLongitude") != null ? 
+            Double.valueOf(body.get("deliveryLongitude").toString()) : null;
+        String deliveryAddress = body.get("deliveryAddress") != null ? 
+            body.get("deliveryAddress").toString() : null;
+
+        Booking booking = newPendingBooking(user, tractor, startAt, endAt, deliveryLat, deliveryLng, deliveryAddress);
+        if (booking == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Minimum booking time is 30 minutes"));
+        }
+        
+        // Async intake: store the request, answer 202 and let an intake worker admit it and send the emails
+        if (prefer != null && prefer.contains("respond-async")) {
+            booking.setStatus(BookingIntakeService.PENDING_INTAKE);
+            Booking accepted = bookingWriteService.save(booking);
+            bookingIntakeService.submit(accepted.getId());
+            String statusUrl = "/api/bookings/" + accepted.getId() + "/intake";
+            return ResponseEntity.accepted()
+                .location(java.net.URI.create(statusUrl))
+                .body(Map.of("bookingId", accepted.getId(), "status", accepted.getStatus(), "statusUrl", statusUrl));
+        }
+        
+        // Checks the free units under the tractor's row lock and saves; answers 400 when fully booked
+        Booking saved = bookingAdmissionService.admit(booking);
+        
+        if (deliveryLat != null && deliveryLng != null && tractor.getDestinationLatitude() == null && tractor.getDestinationLongitude() == null) {
+            tractor.setDestinationLatitude(deliveryLat);
+            tractor.setDestinationLongitude(deliveryLng);
+            tractor.setDestinationAddress(deliveryAddress);
+        }
+        
+        // Save tractor with cleared delivery status
+        tractorRepository.save(tractor);
+        
+        // Send booking confirmation email to customer
+        sendBookingCreatedEmail(saved);
+        
+        // Send new booking notification email to tractor owner
+        sendTractorOwnerNewBookingEmail(saved);
+        
+        return ResponseEntity.ok(saved);
+    }
+
+    /**
+     * Book several tractors, possibly over several days, for one farm job. Either every leg
+     * is admitted or none is; the legs are inserted in one batch and each recipient gets a
+     * single email covering the whole job.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> createJob(@RequestBody Map<String, Object> body, Principal principal) {
+        if (!(body.get("legs") instanceof List<?> rawLegs) || rawLegs.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At least one leg is required"));
+        }
+        if (rawLegs.size() > MAX_JOB_LEGS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "A job can have at most " + MAX_JOB_LEGS + " legs"));
+        }
+        User user = userRepository.findByEmail(principal.getName()).orElseThrow();
+
+        Double deliveryLat = body.get("deliveryLatitude") != null ?
+            Double.valueOf(body.get("deliveryLatitude").toString()) : null;
+        Double deliveryLng = body.get("deliveryLongitude") != null ?
+            Double.valueOf(body.get("deliveryLongitude").toString()) : null;
+        String deliveryAddress = body.get("deliveryAddress") != null ?
+            body.get("deliveryAddress").toString() : null;
+
+        // Check every leg's fields before touching the database, so a malformed leg is a 400 naming it
+        List<Long> tractorIds = new java.util.ArrayList<>();
+        List<LocalDateTime[]> windows = new java.util.ArrayList<>();
+        for (int i = 0; i < rawLegs.size(); i++) {
+            if (!(rawLegs.get(i) instanceof Map<?, ?> leg)
+                || leg.get("tractorId") == null || leg.get("startAt") == null || leg.get("endAt") == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Leg " + (i + 1) + ": tractorId, startAt and endAt are required"));
+            }
+            try {
+                tractorIds.add(Long.valueOf(leg.get("tractorId").toString()));
+                windows.add(new LocalDateTime[] {
+                    LocalDateTime.parse(leg.get("startAt").toString()), LocalDateTime.parse(leg.get("endAt").toString()) });
+            } catch (NumberFormatException | java.time.format.DateTimeParseException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Leg " + (i + 1) + ": invalid tractorId, startAt or endAt"));
+            }
+        }
+
+        Map<Long, Tractor> tractors = new HashMap<>();
+        for (Tractor tractor : tractorRepository.findAllById(tractorIds.stream().distinct().toList())) {
+            tractors.put(tractor.getId(), tractor);
+        }
+
+        String jobReference = java.util.UUID.randomUUID().toString();
+        List<Booking> legs = new java.util.ArrayList<>();
+        for (int i = 0; i < tractorIds.size(); i++) {
+            Tractor tractor = tractors.get(tractorIds.get(i));
+            if (tractor == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Leg " + (i + 1) + ": Tractor not found"));
+            }
+            Booking booking = newPendingBooking(user, tractor, windows.get(i)[0], windows.get(i)[1],
+                deliveryLat, deliveryLng, deliveryAddress);
+            if (booking == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Leg " + (i + 1) + ": Minimum booking time is 30 minutes"));
+            }
+            booking.setJobReference(jobReference);
+            legs.add(booking);
+        }
+
+        // Locks every tractor of the job in id order and admits all legs or none; answers 400 naming the first full leg
+        List<Booking> saved = bookingAdmissionService.admitJob(legs);
+
+        if (deliveryLat != null && deliveryLng != null) {
+            List<Tractor> routed = new java.util.ArrayList<>();
+            for (Tractor tractor : tractors.values()) {
+                if (tractor.getDestinationLatitude() == null && tractor.getDestinationLongitude() == null) {
+                    tractor.setDestinationLatitude(deliveryLat);
+                    tractor.setDestinationLongitude(deliveryLng);
+                    tractor.setDestinationAddress(deliveryAddress);
+                    routed.add(tractor);
+                }
+            }
+            tractorRepository.saveAll(routed);
+        }
+
+        emailService.sendJobBookingCreatedEmail(user, saved);
+        Map<Long, List<Booking>> legsByOwner = new java.util.LinkedHashMap<>();
+        Map<Long, User> owners = new HashMap<>();
+        for (Booking booking : saved) {
+            User owner = booking.getTractor().getOwner();
+            if (owner == null) {
+                logger.warn("Cannot send job booking email: tractor owner is null for booking {}", booking.getId());
+                continue;
+            }
+            owners.put(owner.getId(), owner);
+            legsByOwner.computeIfAbsent(owner.getId(), id -> new java.util.ArrayList<>()).add(booking);
+        }
+        legsByOwner.forEach((ownerId, ownerLegs) -> emailService.sendTractorOwnerJobBookingEmail(owners.get(ownerId), ownerLegs));
+
+        double totalAmount = saved.stream().mapToDouble(b -> b.getTotalAmount() != null ? b.getTotalAmount() : 0).sum();
+        return ResponseEntity.ok(Map.of("jobReference", jobReference, "bookings", saved, "totalAmount", totalAmount));
+    }
+
+    // A new booking awaiting admin approval, priced from the booked time; null when shorter than 30 minutes
+    private Booking newPendingBooking(User user, Tractor tractor, LocalDateTime startAt, LocalDateTime endAt,
+                                      Double deliveryLat, Double deliveryLng, String deliveryAddress) {
         // Calculate booked duration in minutes
         java.time.Duration duration = java.time.Duration.between(startAt, endAt);
         long bookedMinutes = duration.toMinutes();
         
         // Enforce minimum booking time of 30 minutes
         if (bookedMinutes < 30) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Minimum booking time is 30 minutes"));
+            return null;
         }
         
         // Calculate initial price based on booked time (minimum 30 minutes)
@@ -118,14 +344,6 @@ public class BookingController {
         // Calculate 15% commission (will be recalculated on final price)
         double commissionAmount = totalAmount * 0.15;
 
-        // Get delivery location from request
-        Double deliveryLat = body.get("deliveryLatitude") != null ? 
-            Double.valueOf(body.get("deliveryLatitude").toString()) : null;
-        Double deliveryLng = body.get("deliveryLongitude") != null ? 
-            Double.valueOf(body.get("deliveryLongitude").toString()) : null;
-        String deliveryAddress = body.get("deliveryAddress") != null ? 
-            body.get("deliveryAddress").toString() : null;
-
         Booking booking = new Booking();
         booking.setUser(user);
         booking.setTractor(tractor);
@@ -150,60 +368,40 @@ public class BookingController {
         // Set delivery status to null for new booking (per-booking status)
         booking.setDeliveryStatus(null);
         
-        // Check tractor quantity availability before allowing booking
-        Integer tractorQuantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
-        if (tractorQuantity <= 0) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Tractor is not available. All units are currently booked."));
-        }
-        
-        // Count active bookings for this tractor (approved/paid/delivered bookings that haven't ended)
-        LocalDateTime now = LocalDateTime.now();
-        long activeBookingsCount = bookingRepository.findAll().stream()
-            .filter(b -> b.getTractor().getId().equals(tractorId))
-            .filter(b -> {
-                String adminStatus = b.getAdminStatus();
-                boolean isApproved = adminStatus == null || "APPROVED".equals(adminStatus);
-                String status = b.getStatus();
-                boolean isActive = "PENDING".equals(status) || "PAID".equals(status) || 
-                                  "DELIVERED".equals(status) || "CONFIRMED".equals(status);
-                boolean notReturned = b.getDeliveryStatus() == null || 
-                                     !"RETURNED".equals(b.getDeliveryStatus());
-                boolean notCompleted = !"COMPLETED".equals(status) && !"CANCELLED".equals(status);
-                return isApproved && isActive && notReturned && notCompleted && b.getEndAt().isAfter(now);
-            })
-            .count();
-        
-        // Check if there's available quantity
-        if (activeBookingsCount >= tractorQuantity) {
-            return ResponseEntity.badRequest().body(Map.of(
-                "error", 
-                String.format("Tractor is fully booked. %d out of %d units are currently in use.", 
-                    activeBookingsCount, tractorQuantity)
-            ));
+        return booking;
+    }
+
+    @GetMapping("/{bookingId}/intake")
+    public ResponseEntity<?> getIntakeStatus(@PathVariable Long bookingId, Principal principal) {
+        User requester = userRepository.findByEmail(principal.getName()).orElse(null);
+        if (requester == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not found"));
         }
-        
-        if (deliveryLat != null && deliveryLng != null && tractor.getDestinationLatitude() == null && tractor.getDestinationLongitude() == null) {
-            tractor.setDestinationLatitude(deliveryLat);
-            tractor.setDestinationLongitude(deliveryLng);
-            tractor.setDestinationAddress(deliveryAddress);
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
+        }
+        if (!booking.getUser().getId().equals(requester.getId()) && !"SUPER_ADMIN".equals(requester.getRole())) {
+            return ResponseEntity.status(403).body(Map.of("error", "Unauthorized"));
         }
         
-        // Save tractor with cleared delivery status
-        tractorRepository.save(tractor);
-
-        Booking saved = bookingRepository.save(booking);
-        
-        // Send booking confirmation email to customer
-        sendBookingCreatedEmail(saved);
-        
-        // Send new booking notification email to tractor owner
-        sendTractorOwnerNewBookingEmail(saved);
-        
-        return ResponseEntity.ok(saved);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("bookingId", booking.getId());
+        payload.put("status", booking.getStatus());
+        payload.put("adminStatus", booking.getAdminStatus());
+        payload.put("done", !BookingIntakeService.PENDING_INTAKE.equals(booking.getStatus()));
+        payload.put("accepted", !BookingIntakeService.PENDING_INTAKE.equals(booking.getStatus())
+            && !BookingIntakeService.INTAKE_REJECTED.equals(booking.getStatus()));
+        payload.put("error", booking.getIntakeError());
+        return ResponseEntity.ok(payload);
     }
 
     @GetMapping("/{bookingId}/tracking")
-    public ResponseEntity<?> getBookingTracking(@PathVariable Long bookingId, Principal principal) {
+    public ResponseEntity<?> getBookingTracking(@PathVariable Long bookingId,
+                                                @RequestParam(required = false) String routeFormat,
+                                                @RequestParam(required = false) Integer zoom,
+                                                @RequestParam(required = false) Double tolerance,
+                                                Principal principal) {
         if (principal == null || principal.getName() == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
@@ -211,7 +409,7 @@ public class BookingController {
         if (requester == null) {
             return ResponseEntity.status(401).body(Map.of("error", "User not found"));
         }
-        Optional<Booking> bookingOpt = bookingRepository.findById(bookingId);
+        Optional<Booking> bookingOpt = bookingRepository.findWithPaymentsById(bookingId);
         if (bookingOpt.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
         }
@@ -229,7 +427,7 @@ public class BookingController {
         if (tractor == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Tractor data unavailable"));
         }
-        return ResponseEntity.ok(TrackingMapper.buildPayload(tractor, booking));
+        return ResponseEntity.ok(TrackingMapper.buildPayload(tractor, booking, TrackingMapper.RouteFormat.parse(routeFormat), zoom, tolerance));
     }
 
     @PostMapping("/{bookingId}/request-cancellation")
@@ -249,7 +447,7 @@ public class BookingController {
             }
             User user = userOpt.get();
             
-            Optional<Booking> bookingOpt = bookingRepository.findById(bookingId);
+            Optional<Booking> bookingOpt = bookingRepository.findWithPaymentsById(bookingId);
             if (bookingOpt.isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
             }
@@ -290,14 +488,14 @@ public class BookingController {
             if ("PENDING".equals(booking.getStatus())) {
                 // Direct cancellation for pending bookings
                 booking.setStatus("CANCELLED");
-                bookingRepository.save(booking);
+                bookingWriteService.save(booking);
                 logger.info("Booking {} cancelled successfully", bookingId);
                 sendBookingCancelledEmail(booking);
                 return ResponseEntity.ok(Map.of("status", "CANCELLED", "message", "Booking cancelled successfully"));
             } else if ("PAID".equals(booking.getStatus())) {
                 // Request for refund for paid bookings
                 booking.setStatus("REFUND_REQUESTED");
-                bookingRepository.save(booking);
+                bookingWriteService.save(booking);
                 logger.info("Booking {} marked for refund request", bookingId);
                 sendRefundRequestedEmail(booking);
                 return ResponseEntity.ok(Map.of("status", "REFUND_REQUESTED", "message", "Refund request submitted for admin approval"));
@@ -330,7 +528,7 @@ public class BookingController {
         double refundAmount = totalAmount * 0.97; // 97% refund (3% fee)
 
         booking.setStatus("CANCELLED");
-        bookingRepository.save(booking);
+        bookingWriteService.save(booking);
         
         sendRefundApprovedEmail(booking, refundAmount, totalAmount * 0.03);
 
@@ -358,7 +556,7 @@ public class BookingController {
         }
 
         booking.setStatus("PAID"); // Revert back to PAID
-        bookingRepository.save(booking);
+        bookingWriteService.save(booking);
         
         sendRefundRejectedEmail(booking);
 
@@ -369,7 +567,7 @@ public class BookingController {
     public ResponseEntity<?> approveBooking(@PathVariable Long bookingId, Principal principal) {
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
         String role = user.getRole();
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         if (booking == null) return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
         
         // Check if this is a COD booking
@@ -385,66 +583,21 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Only super admins, admins, or tractor owners (for COD bookings) can approve bookings"));
         }
         
-        // Check availability before approving and decrease quantity
         Tractor tractor = booking.getTractor();
-        Integer quantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
-        
-        // Count active bookings (excluding this one if it's already approved)
-        LocalDateTime now = LocalDateTime.now();
-        long activeBookingsCount = bookingRepository.findAll().stream()
-            .filter(b -> b.getTractor().getId().equals(tractor.getId()))
-            .filter(b -> !b.getId().equals(bookingId)) // Exclude current booking
-            .filter(b -> {
-                String adminStatus = b.getAdminStatus();
-                boolean isApproved = adminStatus == null || "APPROVED".equals(adminStatus);
-                String status = b.getStatus();
-                boolean isActive = "PENDING".equals(status) || "PAID".equals(status) || 
-                                  "DELIVERED".equals(status) || "CONFIRMED".equals(status);
-                boolean notReturned = b.getDeliveryStatus() == null || 
-                                     !"RETURNED".equals(b.getDeliveryStatus());
-                boolean notCompleted = !"COMPLETED".equals(status) && !"CANCELLED".equals(status);
-                return isApproved && isActive && notReturned && notCompleted && b.getEndAt().isAfter(now);
-            })
-            .count();
-        
-        // Check if there's available quantity
-        if (activeBookingsCount >= quantity) {
-            return ResponseEntity.badRequest().body(Map.of(
-                "error", 
-                String.format("Cannot approve booking. Tractor is fully booked. %d out of %d units are currently in use.", 
-                    activeBookingsCount, quantity)
-            ));
-        }
-        
-        // Count overlapping approved bookings
-        List<Booking> overlapping = bookingRepository.findOverlappingBookings(
-            tractor, booking.getStartAt(), booking.getEndAt());
         
-        // Exclude current booking from count
-        long overlappingCount = overlapping.stream()
-            .filter(b -> !b.getId().equals(bookingId))
-            .count();
+        // For COD bookings the transition also sets delivery status to ORDERED,
+        // so tracking shows the delivery journey starting from "Ordered"
+        boolean ordered = isCOD && booking.getDeliveryStatus() == null;
         
-        if (overlappingCount >= quantity) {
-            return ResponseEntity.badRequest().body(Map.of(
-                "error", 
-                String.format("Cannot approve: All %d tractors are already booked for this time period", quantity)
-            ));
-        }
-
-        booking.setAdminStatus("APPROVED");
+        // One conditional UPDATE; answers 400 when every unit is taken and 409 if the booking changed meanwhile
+        bookingTransitionService.apply(booking, Transition.APPROVE, Map.of());
         
-        // For COD bookings: Set delivery status to ORDERED when approved
-        // This allows tracking to show the delivery journey starting from "Ordered"
-        if (isCOD && booking.getDeliveryStatus() == null) {
-            booking.setDeliveryStatus("ORDERED");
+        if (ordered) {
             // Update tractor status to "Booked" when order is ready
             tractor.setStatus("Booked");
             tractor.setAvailable(false);
         }
         
-        bookingRepository.save(booking);
-        
         // Set destination for tracking purposes
         applyDestinationFromBooking(tractor, booking);
         tractorRepository.save(tractor);
@@ -458,7 +611,7 @@ public class BookingController {
     public ResponseEntity<?> denyBooking(@PathVariable Long bookingId, Principal principal) {
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
         String role = user.getRole();
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         if (booking == null) return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
         
         // Check if this is a COD booking
@@ -474,8 +627,7 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Only super admins, admins, or tractor owners (for COD bookings) can deny bookings"));
         }
 
-        booking.setAdminStatus("DENIED");
-        bookingRepository.save(booking);
+        bookingTransitionService.apply(booking, Transition.DENY, Map.of());
         
         sendBookingDeniedEmail(booking);
 
@@ -489,52 +641,19 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Only super admins can update payment status"));
         }
 
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         if (booking == null) return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
 
-        if ("CANCELLED".equals(booking.getStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Cannot mark a cancelled booking as paid"));
-        }
-
-        // Check if booking has COD payment method
-        boolean isCOD = booking.getPayments() != null && booking.getPayments().stream()
-            .anyMatch(p -> "CASH_ON_DELIVERY".equals(p.getMethod()));
-
-        // For COD, allow marking as paid even if delivered (payment received after delivery)
-        // For non-COD, require approval before payment
-        if (!isCOD && !"APPROVED".equals(booking.getAdminStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Booking must be approved before marking as paid"));
-        }
-
-        // For COD: If already delivered, keep status as DELIVERED (don't change to PAID)
-        // For non-COD: Change status to PAID
-        if (isCOD) {
-            // For COD, if already delivered, keep it as DELIVERED
-            if (!"DELIVERED".equals(booking.getStatus()) && !"COMPLETED".equals(booking.getStatus())) {
-                booking.setStatus("PAID");
-            }
-        } else {
-            // For non-COD, set status to PAID
-            if (!"PAID".equals(booking.getStatus())) {
-                booking.setStatus("PAID");
-            }
+        // Cancelled bookings can't be paid; non-COD bookings must be approved first, while COD
+        // may be paid after delivery (and then stays DELIVERED)
+        String rejection = BookingTransitionService.rejection(booking, Transition.MARK_PAID);
+        if (rejection != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", rejection));
         }
 
-        if (!"APPROVED".equals(booking.getAdminStatus())) {
-            booking.setAdminStatus("APPROVED");
-        }
-        
-        // Update COD payment status to SUCCESS when marked as paid
-        if (isCOD && booking.getPayments() != null) {
-            booking.getPayments().stream()
-                .filter(p -> "CASH_ON_DELIVERY".equals(p.getMethod()) && "PENDING".equals(p.getStatus()))
-                .forEach(p -> {
-                    p.setStatus("SUCCESS");
-                    paymentRepository.save(p);
-                });
-        }
+        // Approving a COD booking here may take a unit; pending COD payments are settled in the same transaction
+        bookingTransitionService.apply(booking, Transition.MARK_PAID, Map.of());
 
-        bookingRepository.save(booking);
         Tractor tractor = booking.getTractor();
         applyDestinationFromBooking(tractor, booking);
         
@@ -553,7 +672,7 @@ public class BookingController {
     public ResponseEntity<?> markBookingDelivered(@PathVariable Long bookingId, Principal principal) {
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
         String role = user.getRole();
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         if (booking == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
         }
@@ -567,49 +686,28 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Only super admins or tractor owners can update delivery status"));
         }
 
-        // Check if booking has COD payment method
-        boolean isCOD = booking.getPayments() != null && booking.getPayments().stream()
-            .anyMatch(p -> "CASH_ON_DELIVERY".equals(p.getMethod()));
-
         // For COD: Must be approved before delivery
         // For eSewa: Must be paid (already confirmed) before delivery
-        if (isCOD) {
-            if (!"APPROVED".equals(booking.getAdminStatus())) {
-                return ResponseEntity.badRequest().body(Map.of("error", "COD booking must be approved before marking as delivered"));
-            }
-        } else {
-            // For eSewa (non-COD): Must be paid before delivery
-            if (!"PAID".equals(booking.getStatus()) && !"DELIVERED".equals(booking.getStatus())) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Booking must be paid before marking as delivered"));
-            }
-        }
-
-        booking.setStatus("DELIVERED");
-        
-        // For COD bookings, consider payment as received when delivery is confirmed
-        // and mark the COD payment record as SUCCESS so that frontend paymentStatus shows "paid"
-        if (isCOD && booking.getPayments() != null) {
-            booking.getPayments().stream()
-                .filter(p -> "CASH_ON_DELIVERY".equals(p.getMethod()) && !"SUCCESS".equals(p.getStatus()))
-                .forEach(p -> {
-                    p.setStatus("SUCCESS");
-                    paymentRepository.save(p);
-                });
+        String rejection = BookingTransitionService.rejection(booking, Transition.MARK_DELIVERED);
+        if (rejection != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", rejection));
         }
-        
-        bookingRepository.save(booking);
 
         Tractor tractor = booking.getTractor();
         
         // Store original tractor location before updating to delivery location (if not already stored)
+        Map<String, Object> changes = new HashMap<>();
         if (booking.getOriginalTractorLatitude() == null && tractor.getLatitude() != null) {
             booking.setOriginalTractorLatitude(tractor.getLatitude());
             booking.setOriginalTractorLongitude(tractor.getLongitude());
             booking.setOriginalTractorLocation(tractor.getLocation());
+            changes.putAll(originalLocationChanges(booking));
         }
         
-        // Update booking delivery status (per-booking, not tractor-level)
-        booking.setDeliveryStatus("DELIVERED");
+        // Sets status and per-booking delivery status to DELIVERED in one conditional UPDATE.
+        // For COD bookings, payment counts as received when delivery is confirmed, so the
+        // COD payment records are marked SUCCESS and the frontend paymentStatus shows "paid"
+        bookingTransitionService.apply(booking, Transition.MARK_DELIVERED, changes);
         
         // Update tractor current location to delivery location
         if (booking.getDeliveryLatitude() != null && booking.getDeliveryLongitude() != null) {
@@ -625,7 +723,6 @@ public class BookingController {
         tractor.setDestinationLongitude(null);
         tractor.setDestinationAddress(null);
         
-        bookingRepository.save(booking); // Save booking with original location
         tractorRepository.save(tractor);
         
         sendBookingDeliveredEmail(booking);
@@ -637,7 +734,7 @@ public class BookingController {
     public ResponseEntity<?> markBookingCompleted(@PathVariable Long bookingId, Principal principal) {
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
         String role = user.getRole();
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         if (booking == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
         }
@@ -656,19 +753,10 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Tractor not found"));
         }
 
-        // Check if tractor has been returned for this booking
-        if (!"RETURNED".equals(booking.getDeliveryStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Cannot complete booking. Tractor must be returned first."));
-        }
-
-        // Check if booking is already completed
-        if ("COMPLETED".equals(booking.getStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Booking is already completed"));
-        }
-
-        // Check if booking is cancelled
-        if ("CANCELLED".equals(booking.getStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Cannot complete a cancelled booking"));
+        // Tractor must have been returned, and the booking neither completed nor cancelled
+        String rejection = BookingTransitionService.rejection(booking, Transition.COMPLETE);
+        if (rejection != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", rejection));
         }
 
         // For bookings with timer usage: require customer to stop timer first
@@ -694,20 +782,8 @@ public class BookingController {
         }
 
         // For COD bookings, if payment was never explicitly marked as SUCCESS earlier,
-        // mark it as SUCCESS at completion time so the final payment status is "paid".
-        boolean isCOD = booking.getPayments() != null && booking.getPayments().stream()
-            .anyMatch(p -> "CASH_ON_DELIVERY".equals(p.getMethod()));
-        if (isCOD && booking.getPayments() != null) {
-            booking.getPayments().stream()
-                .filter(p -> "CASH_ON_DELIVERY".equals(p.getMethod()) && !"SUCCESS".equals(p.getStatus()))
-                .forEach(p -> {
-                    p.setStatus("SUCCESS");
-                    paymentRepository.save(p);
-                });
-        }
-
-        booking.setStatus("COMPLETED");
-        bookingRepository.save(booking);
+        // the transition marks it as SUCCESS so the final payment status is "paid".
+        bookingTransitionService.apply(booking, Transition.COMPLETE, priceChanges(booking));
 
         // Reset tractor location to original admin location
         if (booking.getOriginalTractorLatitude() != null && booking.getOriginalTractorLongitude() != null) {
@@ -747,7 +823,7 @@ public class BookingController {
     @PostMapping("/{bookingId}/start-usage")
     public ResponseEntity<?> startUsage(@PathVariable Long bookingId, Principal principal) {
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         
         if (booking == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
@@ -758,24 +834,14 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Only the booking owner can start usage"));
         }
         
-        // Check if booking is delivered
-        if (!"DELIVERED".equals(booking.getStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Tractor must be delivered before starting usage"));
-        }
-        
-        // Check booking delivery status - must be DELIVERED
-        Tractor tractor = booking.getTractor();
-        if (tractor == null) {
+        if (booking.getTractor() == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Tractor not found"));
         }
         
-        if (!"DELIVERED".equals(booking.getDeliveryStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Tractor must be delivered to your location before you can start using it"));
-        }
-        
-        // Prevent starting timer if tractor is already returned or booking is completed
-        if ("RETURNED".equals(booking.getDeliveryStatus()) || "COMPLETED".equals(booking.getStatus())) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Cannot start usage. Tractor has been returned or booking is completed"));
+        // Booking and its per-booking delivery status must both be DELIVERED
+        String rejection = BookingTransitionService.rejection(booking, Transition.START_USAGE);
+        if (rejection != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", rejection));
         }
         
         // Check if usage is already started
@@ -783,9 +849,11 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Usage has already been started"));
         }
         
-        // Start the timer
+        // Start the timer; the UPDATE only matches while no start time is set
         booking.setActualUsageStartTime(LocalDateTime.now());
-        bookingRepository.save(booking);
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("actualUsageStartTime", booking.getActualUsageStartTime());
+        bookingTransitionService.apply(booking, Transition.START_USAGE, changes);
         
         return ResponseEntity.ok(Map.of(
             "status", "USAGE_STARTED",
@@ -797,7 +865,7 @@ public class BookingController {
     @PostMapping("/{bookingId}/stop-usage")
     public ResponseEntity<?> stopUsage(@PathVariable Long bookingId, Principal principal) {
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         
         if (booking == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
@@ -832,7 +900,11 @@ public class BookingController {
         // Calculate final price (includes refund calculation)
         calculateFinalPrice(booking);
         
-        bookingRepository.save(booking);
+        // The UPDATE only matches while no stop time is set, so a double stop can't re-price the booking
+        Map<String, Object> changes = priceChanges(booking);
+        changes.put("actualUsageStopTime", stopTime);
+        changes.put("actualUsageMinutes", actualUsageMinutes);
+        bookingTransitionService.apply(booking, Transition.STOP_USAGE, changes);
         
         return ResponseEntity.ok(Map.of(
             "status", "USAGE_STOPPED",
@@ -867,7 +939,7 @@ public class BookingController {
         
         // Calculate final price
         calculateFinalPrice(booking);
-        bookingRepository.save(booking);
+        bookingWriteService.save(booking);
         
         return ResponseEntity.ok(Map.of(
             "initialPrice", booking.getInitialPrice() != null ? booking.getInitialPrice() : 0.0,
@@ -978,7 +1050,7 @@ public class BookingController {
             Principal principal) {
         User user = userRepository.findByEmail(principal.getName()).orElseThrow();
         String role = user.getRole();
-        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        Booking booking = bookingRepository.findWithPaymentsById(bookingId).orElse(null);
         if (booking == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Booking not found"));
         }
@@ -1006,52 +1078,16 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Tractor not found"));
         }
 
-        // Use booking-specific delivery status (not tractor-level)
-        String currentStatus = booking.getDeliveryStatus();
-        
-        // Prevent reverting delivery status if booking is already returned
-        if ("RETURNED".equals(currentStatus) && !"RETURNED".equals(deliveryStatus)) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Cannot change status. Tractor has already been returned for this booking."));
-        }
-        if (currentStatus != null && !currentStatus.isEmpty()) {
-            // Define valid status transitions
-            boolean isValidTransition = false;
-            switch (currentStatus) {
-                case "ORDERED":
-                    // Can only go to DELIVERING
-                    isValidTransition = "DELIVERING".equals(deliveryStatus);
-                    break;
-                case "DELIVERING":
-                    // Can only go to DELIVERED
-                    isValidTransition = "DELIVERED".equals(deliveryStatus);
-                    break;
-                case "DELIVERED":
-                    // Can only go to RETURNED
-                    isValidTransition = "RETURNED".equals(deliveryStatus);
-                    break;
-                case "RETURNED":
-                    // Cannot change from RETURNED (already handled above)
-                    isValidTransition = false;
-                    break;
-                default:
-                    // If status is null or unknown, allow setting to ORDERED (first step)
-                    isValidTransition = "ORDERED".equals(deliveryStatus);
-                    break;
-            }
-            
-            if (!isValidTransition) {
-                return ResponseEntity.badRequest().body(Map.of(
-                    "error", 
-                    String.format("Invalid status transition. Current status: %s. Valid next status: %s", 
-                        currentStatus,
-                        getNextValidStatus(currentStatus))
-                ));
-            }
+        // Booking-specific delivery status (not tractor-level) moves ORDERED -> DELIVERING -> DELIVERED -> RETURNED
+        // and can't change once the tractor has been returned
+        Transition transition = Transition.toDeliveryStatus(deliveryStatus);
+        String rejection = BookingTransitionService.rejection(booking, transition);
+        if (rejection != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", rejection));
         }
 
-        // Update booking-specific delivery status (not tractor-level)
         String previousStatus = booking.getDeliveryStatus();
-        booking.setDeliveryStatus(deliveryStatus);
+        Map<String, Object> changes = new HashMap<>();
         
         // Update tractor availability and status based on delivery status
         switch (deliveryStatus) {
@@ -1072,6 +1108,7 @@ public class BookingController {
                     booking.setOriginalTractorLatitude(tractor.getLatitude());
                     booking.setOriginalTractorLongitude(tractor.getLongitude());
                     booking.setOriginalTractorLocation(tractor.getLocation());
+                    changes.putAll(originalLocationChanges(booking));
                 }
                 
                 // Update tractor current location to delivery location
@@ -1088,16 +1125,8 @@ public class BookingController {
                 tractor.setDestinationLongitude(null);
                 tractor.setDestinationAddress(null);
                 
-                // Update booking status if not already delivered
-                // For COD, booking can be DELIVERED before being PAID
-                // For non-COD, booking should be PAID before being DELIVERED
-                boolean isCOD = booking.getPayments() != null && booking.getPayments().stream()
-                    .anyMatch(p -> "CASH_ON_DELIVERY".equals(p.getMethod()));
-                
-                if (!"DELIVERED".equals(booking.getStatus()) && 
-                    (isCOD || "PAID".equals(booking.getStatus()))) {
-                    booking.setStatus("DELIVERED");
-                }
+                // The transition also moves the booking to DELIVERED if it isn't yet:
+                // for COD it can be DELIVERED before being PAID, for non-COD only once PAID
                 break;
             case "RETURNED":
                 // Allow marking as returned even before booking end time (for testing purposes)
@@ -1113,21 +1142,7 @@ public class BookingController {
                 // Quantity is restored when tractor is returned (available for other bookings)
                 // Restore tractor to original location only if no other active bookings
                 LocalDateTime now = LocalDateTime.now();
-                long otherActiveBookings = bookingRepository.findAll().stream()
-                    .filter(b -> b.getTractor().getId().equals(tractor.getId()))
-                    .filter(b -> !b.getId().equals(bookingId))
-                    .filter(b -> {
-                        String adminStatus = b.getAdminStatus();
-                        boolean isApproved = adminStatus == null || "APPROVED".equals(adminStatus);
-                        String status = b.getStatus();
-                        boolean isActive = "PENDING".equals(status) || "PAID".equals(status) || 
-                                          "DELIVERED".equals(status) || "CONFIRMED".equals(status);
-                        boolean notReturned = b.getDeliveryStatus() == null || 
-                                             !"RETURNED".equals(b.getDeliveryStatus());
-                        boolean notCompleted = !"COMPLETED".equals(status) && !"CANCELLED".equals(status);
-                        return isApproved && isActive && notReturned && notCompleted && b.getEndAt().isAfter(now);
-                    })
-                    .count();
+                long otherActiveBookings = bookingIntervalIndex.countActive(tractor.getId(), now, bookingId);
                 
                 // Only reset location if no other active bookings
                 if (otherActiveBookings == 0 && booking.getOriginalTractorLatitude() != null && booking.getOriginalTractorLongitude() != null) {
@@ -1146,9 +1161,8 @@ public class BookingController {
                 break;
         }
         
-        // IMPORTANT: Save booking after updating deliveryStatus for ALL cases
-        // This ensures deliveryStatus changes are persisted to database
-        bookingRepository.save(booking);
+        // Persist the new deliveryStatus for ALL cases, guarded by the state read above
+        bookingTransitionService.apply(booking, transition, changes);
         tractorRepository.save(tractor);
 
         // Send email notification for delivery status change
@@ -1161,23 +1175,22 @@ public class BookingController {
         ));
     }
 
-    // Helper method to get the next valid status in the flow
-    private String getNextValidStatus(String currentStatus) {
-        if (currentStatus == null || currentStatus.isEmpty()) {
-            return "ORDERED";
-        }
-        switch (currentStatus) {
-            case "ORDERED":
-                return "DELIVERING";
-            case "DELIVERING":
-                return "DELIVERED";
-            case "DELIVERED":
-                return "RETURNED";
-            case "RETURNED":
-                return "N/A (already returned)";
-            default:
-                return "ORDERED";
-        }
+    // Price fields as written by calculateFinalPrice, for a transition's UPDATE
+    private Map<String, Object> priceChanges(Booking booking) {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("finalPrice", booking.getFinalPrice());
+        changes.put("totalAmount", booking.getTotalAmount());
+        changes.put("commissionAmount", booking.getCommissionAmount());
+        changes.put("refundAmount", booking.getRefundAmount());
+        return changes;
+    }
+
+    private Map<String, Object> originalLocationChanges(Booking booking) {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("originalTractorLatitude", booking.getOriginalTractorLatitude());
+        changes.put("originalTractorLongitude", booking.getOriginalTractorLongitude());
+        changes.put("originalTractorLocation", booking.getOriginalTractorLocation());
+        return changes;
     }
 
     private void applyDestinationFromBooking(Tractor tractor, Booking booking) {
@@ -1324,7 +1337,7 @@ public class BookingController {
 
         // Mark payment as released
         booking.setPaymentReleased(true);
-        bookingRepository.save(booking);
+        bookingWriteService.save(booking);
 
         // Send payment release email to tractor owner
         emailService.sendPaymentReleaseEmail(booking, commissionAmount, ownerAmount);
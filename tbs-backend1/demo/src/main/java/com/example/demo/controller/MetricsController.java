@@ -18,6 +18,9 @@ import com.example.demo.model.Booking;
 import com.example.demo.model.Tractor;
 import com.example.demo.repository.BookingRepository;
 import com.example.demo.repository.TractorRepository;
+import com.example.demo.service.BookingIntakeService;
+import com.example.demo.service.TractorCatalogCache;
+import com.example.demo.util.RouteCache;
 import com.example.demo.util.TrackingMapper;
 
 @RestController
@@ -27,10 +30,14 @@ public class MetricsController {
 
     private final BookingRepository bookingRepository;
     private final TractorRepository tractorRepository;
+    private final TractorCatalogCache tractorCatalogCache;
+    private final BookingIntakeService bookingIntakeService;
 
-    public MetricsController(BookingRepository bookingRepository, TractorRepository tractorRepository) {
+    public MetricsController(BookingRepository bookingRepository, TractorRepository tractorRepository, TractorCatalogCache tractorCatalogCache, BookingIntakeService bookingIntakeService) {
         this.bookingRepository = bookingRepository;
         this.tractorRepository = tractorRepository;
+        this.tractorCatalogCache = tractorCatalogCache;
+        this.bookingIntakeService = bookingIntakeService;
     }
 
     @GetMapping("/dispatch/latest")
@@ -116,5 +123,43 @@ public class MetricsController {
 
         return ResponseEntity.ok(payload);
     }
-}
 
+    @GetMapping("/metrics/catalog-cache")
+    public ResponseEntity<?> getCatalogCacheMetrics() {
+        long hits = tractorCatalogCache.getHits();
+        long misses = tractorCatalogCache.getMisses();
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("hits", hits);
+        payload.put("misses", misses);
+        payload.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        payload.put("invalidations", tractorCatalogCache.getInvalidations());
+        payload.put("version", tractorCatalogCache.getVersion());
+        return ResponseEntity.ok(payload);
+    }
+
+    @GetMapping("/metrics/route-cache")
+    public ResponseEntity<?> getRouteCacheMetrics() {
+        RouteCache<?> routeCache = TrackingMapper.getRouteCache();
+        long hits = routeCache.getHits();
+        long misses = routeCache.getMisses();
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("hits", hits);
+        payload.put("misses", misses);
+        payload.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        payload.put("evictions", routeCache.getEvictions());
+        payload.put("expirations", routeCache.getExpirations());
+        payload.put("size", routeCache.size());
+        return ResponseEntity.ok(payload);
+    }
+
+    @GetMapping("/metrics/booking-intake")
+    public ResponseEntity<?> getBookingIntakeMetrics() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("queueDepth", bookingIntakeService.getQueueDepth());
+        payload.put("activeWorkers", bookingIntakeService.getActiveWorkers());
+        payload.put("admitted", bookingIntakeService.getAdmitted());
+        payload.put("rejected", bookingIntakeService.getRejected());
+        payload.put("deferred", bookingIntakeService.getDeferred());
+        return ResponseEntity.ok(payload);
+    }
+}
@@ -18,6 +18,7 @@ import com.example.demo.model.Tractor;
 import com.example.demo.repository.BookingRepository;
 import com.example.demo.repository.PaymentRepository;
 import com.example.demo.repository.TractorRepository;
+import com.example.demo.service.BookingWriteService;
 import com.example.demo.util.EmailService;
 
 @RestController
@@ -30,16 +31,19 @@ public class PaymentController {
     private final BookingRepository bookingRepository;
     private final TractorRepository tractorRepository;
     private final EmailService emailService;
+    private final BookingWriteService bookingWriteService;
 
     public PaymentController(
             PaymentRepository paymentRepository, 
             BookingRepository bookingRepository,
             TractorRepository tractorRepository,
-            EmailService emailService) {
+            EmailService emailService,
+            BookingWriteService bookingWriteService) {
         this.paymentRepository = paymentRepository;
         this.bookingRepository = bookingRepository;
         this.tractorRepository = tractorRepository;
         this.emailService = emailService;
+        this.bookingWriteService = bookingWriteService;
     }
 
     // eSewa sandbox verify stub: in real flow verify reference id with eSewa server
@@ -81,7 +85,7 @@ public class PaymentController {
             tractorRepository.save(tractor);
         }
         
-        bookingRepository.save(booking);
+        bookingWriteService.save(booking);
 
         // Send payment confirmation email
         try {
@@ -141,7 +145,7 @@ public class PaymentController {
         paymentRepository.save(p);
 
         booking.setStatus("PENDING");
-        bookingRepository.save(booking);
+        bookingWriteService.save(booking);
 
         return ResponseEntity.ok(Map.of("status", "CONFIRMED", "method", "CASH_ON_DELIVERY"));
     }
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.model.User;
@@ -20,6 +21,9 @@ import com.example.demo.model.Booking;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.repository.TractorRepository;
 import com.example.demo.repository.BookingRepository;
+import com.example.demo.service.BookingIntervalIndex;
+import com.example.demo.service.BookingListService;
+import com.example.demo.service.TractorStatsService;
 import com.example.demo.util.EmailService;
 
 @RestController
@@ -30,12 +34,18 @@ public class SuperAdminController {
     private final TractorRepository tractorRepository;
     private final BookingRepository bookingRepository;
     private final EmailService emailService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TractorStatsService tractorStatsService;
+    private final BookingListService bookingListService;
 
-    public SuperAdminController(UserRepository userRepository, TractorRepository tractorRepository, BookingRepository bookingRepository, EmailService emailService) {
+    public SuperAdminController(UserRepository userRepository, TractorRepository tractorRepository, BookingRepository bookingRepository, EmailService emailService, BookingIntervalIndex bookingIntervalIndex, TractorStatsService tractorStatsService, BookingListService bookingListService) {
         this.userRepository = userRepository;
         this.tractorRepository = tractorRepository;
         this.bookingRepository = bookingRepository;
         this.emailService = emailService;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.tractorStatsService = tractorStatsService;
+        this.bookingListService = bookingListService;
     }
 
     private boolean isSuperAdmin(Principal principal) {
@@ -163,6 +173,47 @@ public class SuperAdminController {
         return ResponseEntity.ok(bookings);
     }
 
+    // Paginated, projected variant of /bookings; see BookingController's /page for the parameters
+    @GetMapping("/bookings/page")
+    public ResponseEntity<?> getBookingsPage(Principal principal,
+                                             @RequestParam(required = false) String status,
+                                             @RequestParam(required = false) String adminStatus,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(required = false) String sort,
+                                             @RequestParam(required = false) String direction,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "" + BookingListService.DEFAULT_LIMIT) int limit) {
+        if (!isSuperAdmin(principal)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Only super admins can view all bookings"));
+        }
+        return ResponseEntity.ok(bookingListService.page(null, status, adminStatus, fields, sort, direction, cursor, limit));
+    }
+
+    @GetMapping("/booking-index/consistency")
+    public ResponseEntity<?> bookingIndexConsistency(Principal principal) {
+        if (!isSuperAdmin(principal)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Only super admins can inspect the booking index"));
+        }
+        return ResponseEntity.ok(bookingIntervalIndex.checkConsistency());
+    }
+
+    @PostMapping("/booking-index/rebuild")
+    public ResponseEntity<?> rebuildBookingIndex(Principal principal) {
+        if (!isSuperAdmin(principal)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Only super admins can rebuild the booking index"));
+        }
+        bookingIntervalIndex.rebuild();
+        return ResponseEntity.ok(bookingIntervalIndex.checkConsistency());
+    }
+
+    @PostMapping("/tractor-stats/reconcile")
+    public ResponseEntity<?> reconcileTractorStats(Principal principal) {
+        if (!isSuperAdmin(principal)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Only super admins can reconcile tractor stats"));
+        }
+        return ResponseEntity.ok(tractorStatsService.reconcile());
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<?> getStats(Principal principal) {
         if (!isSuperAdmin(principal)) {
@@ -2,9 +2,12 @@ package com.example.demo.controller;
 
 import java.net.URI;
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,14 +16,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.dto.TractorView;
 import com.example.demo.model.Tractor;
 import com.example.demo.model.Booking;
 import com.example.demo.model.Feedback;
+import com.example.demo.model.TractorStats;
 import com.example.demo.model.User;
 import com.example.demo.util.TrackingMapper;
+import com.example.demo.service.AvailabilityCalendarService;
+import com.example.demo.service.AvailabilityCheckService;
+import com.example.demo.service.FeedbackService;
+import com.example.demo.service.TractorCatalogCache;
+import com.example.demo.service.TractorSearchService;
+import com.example.demo.service.TractorSpatialIndex;
+import com.example.demo.service.TractorStatsService;
 import com.example.demo.service.TractorService;
 import com.example.demo.repository.BookingRepository;
 import com.example.demo.repository.FeedbackRepository;
@@ -38,9 +52,23 @@ public class TractorController {
     private final UserRepository userRepository;
     private final TractorRepository tractorRepository;
     private final EmailService emailService;
+    private final TractorCatalogCache tractorCatalogCache;
+    private final TractorSearchService tractorSearchService;
+    private final TractorSpatialIndex tractorSpatialIndex;
+    private final TractorStatsService tractorStatsService;
+    private final FeedbackService feedbackService;
+    private final AvailabilityCalendarService availabilityCalendarService;
+    private final AvailabilityCheckService availabilityCheckService;
 
-    public TractorController(TractorService tractorService, BookingRepository bookingRepository, FeedbackRepository feedbackRepository, UserRepository userRepository, TractorRepository tractorRepository, EmailService emailService) {
+    public TractorController(TractorService tractorService, BookingRepository bookingRepository, FeedbackRepository feedbackRepository, UserRepository userRepository, TractorRepository tractorRepository, EmailService emailService, TractorCatalogCache tractorCatalogCache, TractorSearchService tractorSearchService, TractorSpatialIndex tractorSpatialIndex, TractorStatsService tractorStatsService, FeedbackService feedbackService, AvailabilityCalendarService availabilityCalendarService, AvailabilityCheckService availabilityCheckService) {
         this.tractorService = tractorService;
+        this.tractorCatalogCache = tractorCatalogCache;
+        this.tractorSearchService = tractorSearchService;
+        this.tractorSpatialIndex = tractorSpatialIndex;
+        this.tractorStatsService = tractorStatsService;
+        this.feedbackService = feedbackService;
+        this.availabilityCalendarService = availabilityCalendarService;
+        this.availabilityCheckService = availabilityCheckService;
         this.bookingRepository = bookingRepository;
         this.feedbackRepository = feedbackRepository;
         this.userRepository = userRepository;
@@ -49,15 +77,102 @@ public class TractorController {
     }
 
     @GetMapping
-    public List<Tractor> list() {
-        // Only return approved tractors for public listing
-        return tractorService.getAll().stream()
-            .filter(t -> t.getApprovalStatus() == null || "APPROVED".equals(t.getApprovalStatus()))
+    public ResponseEntity<List<TractorView>> list(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Only approved tractors are cached for public listing; polling clients revalidate with the ETag
+        TractorCatalogCache.Snapshot catalog = tractorCatalogCache.get();
+        if (catalog.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalog.getEtag()).build();
+        }
+        return ResponseEntity.ok().eTag(catalog.getEtag()).body(catalog.getTractors());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String fuelType,
+            @RequestParam(required = false) Integer minHorsePower,
+            @RequestParam(required = false) Integer maxHorsePower,
+            @RequestParam(required = false) Double minRate,
+            @RequestParam(required = false) Double maxRate,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) String approvalStatus,
+            @RequestParam(defaultValue = "rating") String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Principal principal) {
+        TractorSearchService.Criteria criteria = new TractorSearchService.Criteria();
+        try {
+            criteria.sortBy = TractorSearchService.SortBy.valueOf(sort.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "sort must be one of rating, price, distance"));
+        }
+        // Rating defaults to best first, price to cheapest first
+        criteria.descending = direction != null
+            ? "desc".equalsIgnoreCase(direction)
+            : criteria.sortBy == TractorSearchService.SortBy.RATING;
+
+        // Non-approved tractors are only searchable by super admins
+        if (approvalStatus != null && !"APPROVED".equalsIgnoreCase(approvalStatus)) {
+            User user = principal != null ? userRepository.findByEmail(principal.getName()).orElse(null) : null;
+            if (user == null || !"SUPER_ADMIN".equals(user.getRole())) {
+                return ResponseEntity.status(403).body(Map.of("error", "Only super admins can search non-approved tractors"));
+            }
+            criteria.approvalStatus = approvalStatus.toUpperCase();
+        }
+
+        criteria.category = category;
+        criteria.fuelType = fuelType;
+        criteria.minHorsePower = minHorsePower;
+        criteria.maxHorsePower = maxHorsePower;
+        criteria.minHourlyRate = minRate;
+        criteria.maxHourlyRate = maxRate;
+        criteria.available = available;
+        criteria.latitude = latitude;
+        criteria.longitude = longitude;
+        criteria.radiusKm = radiusKm;
+        criteria.cursor = cursor;
+        criteria.size = size;
+        return ResponseEntity.ok(tractorSearchService.search(criteria));
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<?> nearby(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            return ResponseEntity.badRequest().body(Map.of("error", "latitude or longitude out of range"));
+        }
+        if (radiusKm != null && radiusKm <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "radiusKm must be positive"));
+        }
+        int max = Math.max(1, Math.min(limit, 100));
+
+        // With a radius: everything inside it (closest first); without: the k nearest within 100 km
+        List<TractorSpatialIndex.Hit> hits = radiusKm != null
+            ? tractorSpatialIndex.withinRadius(latitude, longitude, radiusKm, max)
+            : tractorSpatialIndex.nearest(latitude, longitude, max, 100);
+
+        Map<Long, Double> distances = new java.util.LinkedHashMap<>();
+        hits.forEach(h -> distances.put(h.getTractorId(), h.getDistanceKm()));
+        List<Map<String, Object>> items = tractorService.getByIds(new java.util.ArrayList<>(distances.keySet())).stream()
+            .map(t -> {
+                Map<String, Object> item = new java.util.HashMap<>();
+                item.put("tractor", t);
+                item.put("distanceKm", distances.get(t.getId()));
+                return item;
+            })
             .collect(java.util.stream.Collectors.toList());
+        return ResponseEntity.ok(Map.of("items", items, "count", items.size()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Tractor> get(@PathVariable Long id) {
+    public ResponseEntity<TractorView> get(@PathVariable Long id) {
         return tractorService.getById(id)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
@@ -163,12 +278,46 @@ public class TractorController {
         return ok ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> availabilityCalendar(
+            @PathVariable Long id,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String granularity) {
+        Tractor tractor = tractorRepository.findById(id).orElse(null);
+        if (tractor == null) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            // Defaults to the next 7 days starting at the current hour
+            start = from != null ? parseDateTime(from) : LocalDateTime.now().truncatedTo(java.time.temporal.ChronoUnit.HOURS);
+            end = to != null ? parseDateTime(to) : start.plusDays(7);
+        } catch (java.time.format.DateTimeParseException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from and to must be ISO dates or date-times"));
+        }
+        java.time.Duration step = AvailabilityCalendarService.parseGranularity(granularity);
+        return ResponseEntity.ok(availabilityCalendarService.calendar(tractor, start, end, step));
+    }
+
+    @PostMapping("/availability/check")
+    public ResponseEntity<?> checkAvailability(@RequestBody List<Map<String, Object>> checks) {
+        if (checks == null || checks.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At least one check is required"));
+        }
+        return ResponseEntity.ok(Map.of("results", availabilityCheckService.check(checks)));
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        return value.length() == 10 ? java.time.LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+
     @GetMapping("/{id}/stats")
     public ResponseEntity<?> stats(@PathVariable Long id) {
-        return tractorService.getById(id)
+        return tractorRepository.findById(id)
             .map(t -> {
-                long bookings = bookingRepository.countByTractorId(id);
-                Double avg = feedbackRepository.averageRatingForTractor(id);
+                TractorStats counters = tractorStatsService.forTractor(id);
                 java.util.List<Feedback> latest = feedbackRepository.findTop10ByTractorIdOrderByCreatedAtDesc(id);
                 
                 // Map feedback to include user profile picture
@@ -192,8 +341,8 @@ public class TractorController {
                 
                 return ResponseEntity.ok(java.util.Map.of(
                     "tractorId", id,
-                    "totalBookings", bookings,
-                    "avgRating", avg != null ? avg : 0.0,
+                    "totalBookings", counters.getTotalBookings(),
+                    "avgRating", counters.getAverageRating(),
                     "feedback", feedbackList
                 ));
             })
@@ -242,12 +391,19 @@ public class TractorController {
     }
 
     @GetMapping("/{id}/tracking")
-    public ResponseEntity<?> getTractorTracking(@PathVariable Long id) {
-        return tractorService.getById(id)
+    public ResponseEntity<?> getTractorTracking(@PathVariable Long id,
+                                                @RequestParam(required = false) String routeFormat,
+                                                @RequestParam(required = false) Integer zoom,
+                                                @RequestParam(required = false) Double tolerance) {
+        TrackingMapper.RouteFormat format = TrackingMapper.RouteFormat.parse(routeFormat);
+        return tractorRepository.findById(id)
             .map(tractor -> {
                 List<Booking> active = bookingRepository.findActiveTrackingBookings(tractor);
                 Booking relevant = active.isEmpty() ? null : active.get(0);
-                return ResponseEntity.ok(TrackingMapper.buildPayload(tractor, relevant));
+                Map<String, Object> payload = TrackingMapper.buildPayload(tractor, relevant, format, zoom, tolerance);
+                // Derived status comes from the view; the entity keeps its stored value
+                payload.put("status", tractorService.view(tractor).getStatus());
+                return ResponseEntity.ok(payload);
             })
             .orElse(ResponseEntity.notFound().build());
     }
@@ -267,7 +423,7 @@ public class TractorController {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", "You have already rated this tractor"));
         }
 
-        return tractorService.getById(id)
+        return tractorRepository.findById(id)
             .map(t -> {
                 int rating;
                 try {
@@ -279,16 +435,7 @@ public class TractorController {
                     return ResponseEntity.badRequest().body(java.util.Map.of("error", "Rating must be between 1 and 5"));
                 }
                 String comment = body.getOrDefault("comment", "");
-                Feedback f = new Feedback();
-                f.setTractor(t);
-                f.setUser(user);
-                f.setAuthorName(user.getName());
-                f.setRating(rating);
-                f.setComment(comment);
-                feedbackRepository.save(f);
-                Double avg = feedbackRepository.averageRatingForTractor(id);
-                t.setRating(avg);
-                tractorService.update(t.getId(), t);
+                double avg = feedbackService.submit(t, user, rating, comment);
                 return ResponseEntity.ok(java.util.Map.of("status", "OK", "avgRating", avg));
             })
             .orElse(ResponseEntity.notFound().build());
@@ -0,0 +1,114 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+
+/**
+ * Read-only tractor as served by the catalog endpoints. Serializes like Tractor, but the
+ * derived fields (status, available, totalBookings, nextAvailableAt) are computed into the
+ * view instead of being written onto the managed entity. The owner is reduced to the id,
+ * name and phone, so the public catalog never carries account fields.
+ */
+public class TractorView {
+    private final Long id;
+    private final String name;
+    private final String model;
+    private final Double hourlyRate;
+    private final Boolean available;
+    private final String imageUrl;
+    private final List<String> imageUrls;
+    private final String description;
+    private final String location;
+    private final Double latitude;
+    private final Double longitude;
+    private final LocalDateTime locationUpdatedAt;
+    private final Integer horsePower;
+    private final String fuelType;
+    private final Double fuelLevel;
+    private final Double rating;
+    private final Integer totalBookings;
+    private final String status;
+    private final String deliveryStatus;
+    private final String nextAvailableAt;
+    private final String category;
+    private final Integer quantity;
+    private final Double destinationLatitude;
+    private final Double destinationLongitude;
+    private final String destinationAddress;
+    private final Long ownerId;
+    private final String ownerName;
+    private final String ownerPhone;
+    private final String approvalStatus;
+
+    private TractorView(Tractor t, Boolean available, Integer totalBookings, String status, String nextAvailableAt) {
+        this.id = t.getId();
+        this.name = t.getName();
+        this.model = t.getModel();
+        this.hourlyRate = t.getHourlyRate();
+        this.available = available;
+        this.imageUrl = t.getImageUrl();
+        // Copied so the view never touches a lazy collection after the session closes
+        this.imageUrls = t.getImageUrls() != null ? new ArrayList<>(t.getImageUrls()) : null;
+        this.description = t.getDescription();
+        this.location = t.getLocation();
+        this.latitude = t.getLatitude();
+        this.longitude = t.getLongitude();
+        this.locationUpdatedAt = t.getLocationUpdatedAt();
+        this.horsePower = t.getHorsePower();
+        this.fuelType = t.getFuelType();
+        this.fuelLevel = t.getFuelLevel();
+        this.rating = t.getRating();
+        this.totalBookings = totalBookings;
+        this.status = status;
+        this.deliveryStatus = t.getDeliveryStatus();
+        this.nextAvailableAt = nextAvailableAt;
+        this.category = t.getCategory();
+        this.quantity = t.getQuantity();
+        this.destinationLatitude = t.getDestinationLatitude();
+        this.destinationLongitude = t.getDestinationLongitude();
+        this.destinationAddress = t.getDestinationAddress();
+        User owner = t.getOwner();
+        this.ownerId = owner != null ? owner.getId() : null;
+        this.ownerName = owner != null ? owner.getName() : null;
+        this.ownerPhone = owner != null ? owner.getPhone() : null;
+        this.approvalStatus = t.getApprovalStatus();
+    }
+
+    public static TractorView of(Tractor tractor, boolean available, int totalBookings, String status, String nextAvailableAt) {
+        return new TractorView(tractor, available, totalBookings, status, nextAvailableAt);
+    }
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getModel() { return model; }
+    public Double getHourlyRate() { return hourlyRate; }
+    public Boolean getAvailable() { return available; }
+    public String getImageUrl() { return imageUrl; }
+    public List<String> getImageUrls() { return imageUrls; }
+    public String getDescription() { return description; }
+    public String getLocation() { return location; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public LocalDateTime getLocationUpdatedAt() { return locationUpdatedAt; }
+    public Integer getHorsePower() { return horsePower; }
+    public String getFuelType() { return fuelType; }
+    public Double getFuelLevel() { return fuelLevel; }
+    public Double getRating() { return rating; }
+    public Integer getTotalBookings() { return totalBookings; }
+    public String getStatus() { return status; }
+    public String getDeliveryStatus() { return deliveryStatus; }
+    public String getNextAvailableAt() { return nextAvailableAt; }
+    public String getCategory() { return category; }
+    public Integer getQuantity() { return quantity; }
+    public Double getDestinationLatitude() { return destinationLatitude; }
+    public Double getDestinationLongitude() { return destinationLongitude; }
+    public String getDestinationAddress() { return destinationAddress; }
+    public Long getOwnerId() { return ownerId; }
+    public String getOwnerName() { return ownerName; }
+    public String getOwnerPhone() { return ownerPhone; }
+    public String getApprovalStatus() { return approvalStatus; }
+}
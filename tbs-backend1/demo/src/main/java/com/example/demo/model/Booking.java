@@ -4,13 +4,26 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.example.demo.service.BookingCountedStateListener;
+import com.example.demo.service.BookingIntervalIndexListener;
+import com.example.demo.service.CatalogInvalidationListener;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    // Per-tractor overlap queries: tractor equality, then the start_at range; the status
+    // filters are applied to the rows in that range (a range on status would stop start_at being used)
+    @Index(name = "idx_booking_tractor_window", columnList = "tractor_id, start_at, end_at"),
+    // Per-tractor "ends after now" lookups (active counts, next free time)
+    @Index(name = "idx_booking_tractor_end", columnList = "tractor_id, end_at"),
+    // Keyset pages of the admin booking list sorted by start or end (InnoDB appends the id)
+    @Index(name = "idx_booking_start", columnList = "start_at"),
+    @Index(name = "idx_booking_end", columnList = "end_at")
+})
+@EntityListeners({CatalogInvalidationListener.class, BookingIntervalIndexListener.class, BookingCountedStateListener.class})
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("bookings") // Assigned before insert, so inserts can be batched
     private Long id;
 
     @ManyToOne(optional = false)
@@ -45,7 +58,8 @@ public class Booking {
     private Double originalTractorLongitude;
     private String originalTractorLocation;
 
-    @OneToMany(mappedBy = "booking", cascade = CascadeType.REMOVE, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Lazy: lists never need them; lifecycle endpoints load them with BookingRepository.findWithPaymentsById
+    @OneToMany(mappedBy = "booking", cascade = CascadeType.REMOVE, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Payment> payments;
     
@@ -70,6 +84,28 @@ public class Booking {
     
     @Column(length = 20)
     private String deliveryStatus; // ORDERED, DELIVERING, DELIVERED, RETURNED - per booking delivery status
+
+    @Column(length = 255)
+    private String intakeError; // Why async intake rejected the booking (status INTAKE_REJECTED)
+
+    @Column(length = 36)
+    private String jobReference; // Shared by the legs of one farm job booked through POST /api/bookings/jobs
+
+    // State already reflected in tractor_stats and tractor_capacity, captured on load and after each counted write
+    @Transient
+    private boolean counted;
+    @Transient
+    private Long countedTractorId;
+    @Transient
+    private LocalDateTime countedStartAt;
+    @Transient
+    private LocalDateTime countedEndAt;
+    @Transient
+    private boolean countedTotal;
+    @Transient
+    private boolean countedActive;
+    @Transient
+    private boolean countedCompleted;
     
     // Helper method to get payment method for JSON serialization
     @com.fasterxml.jackson.annotation.JsonProperty("paymentMethod")
@@ -165,6 +201,34 @@ public class Booking {
     
     public String getDeliveryStatus() { return deliveryStatus; }
     public void setDeliveryStatus(String deliveryStatus) { this.deliveryStatus = deliveryStatus; }
-}
-
+    public String getIntakeError() { return intakeError; }
+    public void setIntakeError(String intakeError) { this.intakeError = intakeError; }
+    public String getJobReference() { return jobReference; }
+    public void setJobReference(String jobReference) { this.jobReference = jobReference; }
 
+    @JsonIgnore
+    public boolean isCounted() { return counted; }
+    @JsonIgnore
+    public Long getCountedTractorId() { return countedTractorId; }
+    @JsonIgnore
+    public LocalDateTime getCountedStartAt() { return countedStartAt; }
+    @JsonIgnore
+    public LocalDateTime getCountedEndAt() { return countedEndAt; }
+    @JsonIgnore
+    public boolean isCountedTotal() { return countedTotal; }
+    @JsonIgnore
+    public boolean isCountedActive() { return countedActive; }
+    @JsonIgnore
+    public boolean isCountedCompleted() { return countedCompleted; }
+
+    public void markCounted(Long tractorId, LocalDateTime startAt, LocalDateTime endAt, boolean total, boolean active,
+                            boolean completed) {
+        this.counted = true;
+        this.countedTractorId = tractorId;
+        this.countedStartAt = startAt;
+        this.countedEndAt = endAt;
+        this.countedTotal = total;
+        this.countedActive = active;
+        this.countedCompleted = completed;
+    }
+}
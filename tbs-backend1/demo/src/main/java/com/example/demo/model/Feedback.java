@@ -9,7 +9,7 @@ import jakarta.persistence.*;
 @Table(name = "feedback")
 public class Feedback {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("feedback") // Assigned before insert, so inserts can be batched
     private Long id;
 
     @ManyToOne(optional = false)
@@ -0,0 +1,24 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Next unreserved id of one table (see IdBlockAllocator). Mapped so the schema is managed
+ * with the rest of the tables; rows are only read and written by the allocator.
+ */
+@Entity
+@Table(name = "id_generators")
+public class IdGeneratorRow {
+    @Id
+    @Column(length = 64)
+    private String entity;
+
+    @Column(name = "next_val", nullable = false)
+    private Long nextVal;
+
+    public String getEntity() { return entity; }
+    public void setEntity(String entity) { this.entity = entity; }
+
+    public Long getNextVal() { return nextVal; }
+    public void setNextVal(Long nextVal) { this.nextVal = nextVal; }
+}
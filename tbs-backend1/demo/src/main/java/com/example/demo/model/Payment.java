@@ -8,7 +8,7 @@ import jakarta.persistence.*;
 @Table(name = "payments")
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("payments") // Assigned before insert, so inserts can be batched
     private Long id;
 
     @ManyToOne(optional = false)
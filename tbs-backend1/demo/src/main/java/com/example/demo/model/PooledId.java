@@ -0,0 +1,20 @@
+package com.example.demo.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Id taken from a block reserved in the id_generators table (see IdBlockAllocator).
+ * Unlike IDENTITY the id is known before the INSERT, which lets Hibernate batch inserts.
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledId {
+    // Generator row name; the entity's table, whose highest id the generator stays above
+    String value();
+}
@@ -0,0 +1,33 @@
+package com.example.demo.model;
+
+import java.lang.reflect.Member;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerator;
+
+import com.example.demo.service.IdBlockAllocator;
+
+/**
+ * Created by Spring through Hibernate's bean container (hibernate.cdi.extensions), so the
+ * allocator is injected rather than looked up.
+ */
+public class PooledIdGenerator implements IdentifierGenerator, AnnotationBasedGenerator<PooledId> {
+    private final IdBlockAllocator idBlockAllocator;
+    private String table;
+
+    public PooledIdGenerator(IdBlockAllocator idBlockAllocator) {
+        this.idBlockAllocator = idBlockAllocator;
+    }
+
+    @Override
+    public void initialize(PooledId config, Member member, GeneratorCreationContext context) {
+        this.table = config.value();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object entity) {
+        return idBlockAllocator.next(table);
+    }
+}
@@ -1,19 +1,33 @@
 package com.example.demo.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.ColumnDefault;
+import com.example.demo.service.CatalogInvalidationListener;
+import com.example.demo.service.TractorSpatialIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "tractors")
+@Table(name = "tractors", indexes = {
+    // Serve the filtered and keyset-sorted search in TractorSearchService, which compares the raw
+    // (NOT NULL) approval_status, hourly_rate and rating columns so these indexes can order the page
+    @Index(name = "idx_tractor_approval_category", columnList = "approval_status, category"),
+    @Index(name = "idx_tractor_approval_rate", columnList = "approval_status, hourly_rate, id"),
+    @Index(name = "idx_tractor_approval_rating", columnList = "approval_status, rating, id"),
+    @Index(name = "idx_tractor_fuel_hp", columnList = "fuel_type, horse_power"),
+    @Index(name = "idx_tractor_lat_lng", columnList = "latitude, longitude")
+})
+@EntityListeners({CatalogInvalidationListener.class, TractorSpatialIndexListener.class})
 public class Tractor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("tractors") // Assigned before insert, so inserts can be batched
     private Long id;
 
     private String name;
     private String model;
+    @ColumnDefault("0")
+    @Column(nullable = false)
     private Double hourlyRate;
     private Boolean available;
     private String imageUrl;
@@ -31,6 +45,8 @@ public class Tractor {
     private Integer horsePower;
     private String fuelType;
     private Double fuelLevel;
+    @ColumnDefault("0")
+    @Column(nullable = false)
     private Double rating;
     private Integer totalBookings;
     private String status; // General status: Available, Booked, In Use, etc.
@@ -47,13 +63,24 @@ public class Tractor {
     @JoinColumn(name = "owner_id", foreignKey = @ForeignKey(name = "fk_tractor_owner"))
     private User owner; // Tractor owner who owns this tractor
 
-    @Column(length = 20)
+    @ColumnDefault("'APPROVED'")
+    @Column(length = 20, nullable = false)
     private String approvalStatus; // PENDING, APPROVED, REJECTED - for super admin verification
 
     @OneToMany(mappedBy = "tractor", fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Booking> bookings;
 
+    // Unset values as the search used to read them: no status means listed before the approval
+    // workflow (approved), and a missing rate or rating sorts as 0. See TractorService.backfillSearchColumns
+    @PrePersist
+    @PreUpdate
+    void fillSearchDefaults() {
+        if (approvalStatus == null) approvalStatus = "APPROVED";
+        if (hourlyRate == null) hourlyRate = 0.0;
+        if (rating == null) rating = 0.0;
+    }
+
     public Long getId() {
         return id;
     }
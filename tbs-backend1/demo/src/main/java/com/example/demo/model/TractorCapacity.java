@@ -0,0 +1,61 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.*;
+
+/**
+ * Units of a tractor reserved during one time bucket (see CapacityLedger). The primary
+ * key (tractor_id, bucket_start) doubles as the index for range reads over a booking window.
+ */
+@Entity
+@Table(name = "tractor_capacity")
+@IdClass(TractorCapacity.Key.class)
+public class TractorCapacity {
+    @Id
+    @Column(name = "tractor_id")
+    private Long tractorId;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private Integer reserved = 0;
+
+    public Long getTractorId() { return tractorId; }
+    public void setTractorId(Long tractorId) { this.tractorId = tractorId; }
+
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+
+    public Integer getReserved() { return reserved; }
+    public void setReserved(Integer reserved) { this.reserved = reserved; }
+
+    public static class Key implements Serializable {
+        private Long tractorId;
+        private LocalDateTime bucketStart;
+
+        public Key() {}
+
+        public Key(Long tractorId, LocalDateTime bucketStart) {
+            this.tractorId = tractorId;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return Objects.equals(tractorId, other.tractorId) && Objects.equals(bucketStart, other.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tractorId, bucketStart);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Per-tractor booking and rating counters, updated in the same transaction as the booking
+ * or feedback write that changes them (see TractorStatsService).
+ */
+@Entity
+@Table(name = "tractor_stats")
+public class TractorStats {
+    @Id
+    @Column(name = "tractor_id")
+    private Long tractorId;
+
+    @Column(nullable = false)
+    private Long totalBookings = 0L;
+
+    @Column(nullable = false)
+    private Long activeBookings = 0L; // Bookings currently holding a unit (approved, not cancelled, completed or returned)
+
+    @Column(nullable = false)
+    private Long completedBookings = 0L;
+
+    @Column(nullable = false)
+    private Long ratingSum = 0L;
+
+    @Column(nullable = false)
+    private Long ratingCount = 0L;
+
+    private LocalDateTime updatedAt;
+
+    public TractorStats() {}
+
+    public TractorStats(Long tractorId) {
+        this.tractorId = tractorId;
+    }
+
+    public Double getAverageRating() {
+        return ratingCount != null && ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+    }
+
+    public Long getTractorId() { return tractorId; }
+    public void setTractorId(Long tractorId) { this.tractorId = tractorId; }
+
+    public Long getTotalBookings() { return totalBookings; }
+    public void setTotalBookings(Long totalBookings) { this.totalBookings = totalBookings; }
+
+    public Long getActiveBookings() { return activeBookings; }
+    public void setActiveBookings(Long activeBookings) { this.activeBookings = activeBookings; }
+
+    public Long getCompletedBookings() { return completedBookings; }
+    public void setCompletedBookings(Long completedBookings) { this.completedBookings = completedBookings; }
+
+    public Long getRatingSum() { return ratingSum; }
+    public void setRatingSum(Long ratingSum) { this.ratingSum = ratingSum; }
+
+    public Long getRatingCount() { return ratingCount; }
+    public void setRatingCount(Long ratingCount) { this.ratingCount = ratingCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+// Minimal booking shape needed to rebuild in-memory interval indexes
+public interface BookingIntervalView {
+    Long getBookingId();
+    Long getTractorId();
+    LocalDateTime getStartAt();
+    LocalDateTime getEndAt();
+}
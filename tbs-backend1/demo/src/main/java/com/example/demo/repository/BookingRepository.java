@@ -2,9 +2,12 @@ package com.example.demo.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -12,20 +15,42 @@ import com.example.demo.model.Booking;
 import com.example.demo.model.Tractor;
 import com.example.demo.model.User;
 
+import jakarta.persistence.LockModeType;
+
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByUser(User user);
-    long countByTractorId(Long tractorId);
+    // The customer's own bookings; ones still in (or refused by) async intake are reported by GET /{id}/intake
+    @Query("SELECT b FROM Booking b WHERE b.user = :user AND b.status NOT IN ('PENDING_INTAKE', 'INTAKE_REJECTED')")
+    List<Booking> findByUser(@Param("user") User user);
     
-    // Find overlapping bookings for a tractor in a time period
-    @Query("SELECT b FROM Booking b WHERE b.tractor = :tractor " +
-           "AND (b.adminStatus IS NULL OR b.adminStatus IN ('PENDING_APPROVAL', 'APPROVED')) " +
-           "AND b.status != 'CANCELLED' " +
-           "AND ((b.startAt <= :startAt AND b.endAt > :startAt) OR " +
-           "(b.startAt < :endAt AND b.endAt >= :endAt) OR " +
-           "(b.startAt >= :startAt AND b.endAt <= :endAt))")
-    List<Booking> findOverlappingBookings(@Param("tractor") Tractor tractor, 
-                                          @Param("startAt") LocalDateTime startAt, 
-                                          @Param("endAt") LocalDateTime endAt);
+    // Locks the row, for async intake workers that may race each other for the same booking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+    
+    // A single booking with its payments fetched in the same SELECT, for endpoints that check COD
+    @EntityGraph(attributePaths = "payments", type = EntityGraph.EntityGraphType.LOAD)
+    Optional<Booking> findWithPaymentsById(Long id);
+    
+    // Every admitted booking on the owner's tractors, joined through tractors instead of scanning all bookings
+    @Query("SELECT b FROM Booking b JOIN b.tractor t WHERE t.owner = :owner " +
+           "AND b.status NOT IN ('PENDING_INTAKE', 'INTAKE_REJECTED') ORDER BY b.id")
+    List<Booking> findByTractorOwner(@Param("owner") User owner);
+    
+    // One page of the owner's feed, newest first; pass the last bookingId seen as beforeId for the next page
+    @Query("SELECT b.id AS bookingId, t.id AS tractorId, t.name AS tractorName, " +
+           "u.id AS customerId, u.name AS customerName, u.phone AS customerPhone, " +
+           "b.startAt AS startAt, b.endAt AS endAt, b.status AS status, b.adminStatus AS adminStatus, " +
+           "b.deliveryStatus AS deliveryStatus, b.totalAmount AS totalAmount, b.deliveryAddress AS deliveryAddress " +
+           "FROM Booking b JOIN b.tractor t JOIN b.user u WHERE t.owner.id = :ownerId " +
+           "AND b.status NOT IN ('PENDING_INTAKE', 'INTAKE_REJECTED') " +
+           "AND (:status IS NULL OR b.status = :status) " +
+           "AND (:adminStatus IS NULL OR b.adminStatus = :adminStatus) " +
+           "AND b.id < :beforeId ORDER BY b.id DESC")
+    List<OwnerBookingView> findOwnerFeed(@Param("ownerId") Long ownerId, @Param("status") String status,
+                                         @Param("adminStatus") String adminStatus, @Param("beforeId") Long beforeId,
+                                         Pageable pageable);
+    long countByTractorId(Long tractorId);
+    boolean existsByTractorId(Long tractorId);
     
     // Count active bookings for a tractor at a specific time
     @Query("SELECT COUNT(b) FROM Booking b WHERE b.tractor = :tractor " +
@@ -40,6 +65,65 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
            "ORDER BY b.endAt ASC")
     List<Booking> findActiveTrackingBookings(@Param("tractor") Tractor tractor);
     
+    // Approved bookings that still hold a tractor unit (mirrors BookingIntervalIndex.isIndexable)
+    @Query("SELECT b.id AS bookingId, b.tractor.id AS tractorId, b.startAt AS startAt, b.endAt AS endAt " +
+           "FROM Booking b WHERE (b.adminStatus IS NULL OR b.adminStatus = 'APPROVED') " +
+           "AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED') " +
+           "AND (b.deliveryStatus IS NULL OR b.deliveryStatus <> 'RETURNED')")
+    List<BookingIntervalView> findIndexableIntervals();
+    
+    // Unit-holding bookings of one tractor overlapping [from, to), in start order (for the availability sweep).
+    // Served by idx_booking_tractor_window: tractor_id equality plus the start_at < :to range
+    @Query("SELECT b.id AS bookingId, b.tractor.id AS tractorId, b.startAt AS startAt, b.endAt AS endAt " +
+           "FROM Booking b WHERE b.tractor.id = :tractorId " +
+           "AND (b.adminStatus IS NULL OR b.adminStatus = 'APPROVED') " +
+           "AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED') " +
+           "AND (b.deliveryStatus IS NULL OR b.deliveryStatus <> 'RETURNED') " +
+           "AND b.startAt < :to AND b.endAt > :from ORDER BY b.startAt")
+    List<BookingIntervalView> findIndexableIntervalsOverlapping(@Param("tractorId") Long tractorId,
+                                                                @Param("from") LocalDateTime from,
+                                                                @Param("to") LocalDateTime to);
+    
+    // Same as a locking read, so it sees bookings committed after this transaction's snapshot (for CapacityLedger)
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT b.id AS bookingId, b.tractor.id AS tractorId, b.startAt AS startAt, b.endAt AS endAt " +
+           "FROM Booking b WHERE b.tractor.id = :tractorId " +
+           "AND (b.adminStatus IS NULL OR b.adminStatus = 'APPROVED') " +
+           "AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED') " +
+           "AND (b.deliveryStatus IS NULL OR b.deliveryStatus <> 'RETURNED') " +
+           "AND b.startAt < :to AND b.endAt > :from ORDER BY b.startAt")
+    List<BookingIntervalView> lockIndexableIntervalsOverlapping(@Param("tractorId") Long tractorId,
+                                                                @Param("from") LocalDateTime from,
+                                                                @Param("to") LocalDateTime to);
+    
+    // tractor_stats booking counters recomputed from scratch, for the reconciler (mirrors TractorStatsService);
+    // bookings still in, or refused by, async intake are not counted at all
+    @Query("SELECT b.tractor.id AS tractorId, COUNT(b) AS totalBookings, " +
+           "SUM(CASE WHEN (b.adminStatus IS NULL OR b.adminStatus = 'APPROVED') " +
+           "AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED') " +
+           "AND (b.deliveryStatus IS NULL OR b.deliveryStatus <> 'RETURNED') THEN 1 ELSE 0 END) AS activeBookings, " +
+           "SUM(CASE WHEN b.status = 'COMPLETED' THEN 1 ELSE 0 END) AS completedBookings " +
+           "FROM Booking b WHERE b.status NOT IN ('PENDING_INTAKE', 'INTAKE_REJECTED') GROUP BY b.tractor.id")
+    List<TractorBookingCountsView> countBookingsByTractor();
+
+    @Query("SELECT b.tractor.id AS tractorId, COUNT(b) AS totalBookings, " +
+           "SUM(CASE WHEN (b.adminStatus IS NULL OR b.adminStatus = 'APPROVED') " +
+           "AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED') " +
+           "AND (b.deliveryStatus IS NULL OR b.deliveryStatus <> 'RETURNED') THEN 1 ELSE 0 END) AS activeBookings, " +
+           "SUM(CASE WHEN b.status = 'COMPLETED' THEN 1 ELSE 0 END) AS completedBookings " +
+           "FROM Booking b WHERE b.tractor.id = :tractorId " +
+           "AND b.status NOT IN ('PENDING_INTAKE', 'INTAKE_REJECTED') GROUP BY b.tractor.id")
+    Optional<TractorBookingCountsView> countBookingsForTractor(@Param("tractorId") Long tractorId);
+    
+    // Earliest moment an active booking ends, i.e. when derived tractor availability next changes on its own
+    @Query("SELECT MIN(b.endAt) FROM Booking b WHERE (b.adminStatus IS NULL OR b.adminStatus = 'APPROVED') " +
+           "AND b.status IN ('PENDING', 'PAID', 'DELIVERED') AND b.endAt > :now")
+    LocalDateTime findEarliestActiveEndAfter(@Param("now") LocalDateTime now);
+    
+    // Bookings accepted by async intake that no worker has admitted or rejected yet
+    @Query("SELECT b.id FROM Booking b WHERE b.status = 'PENDING_INTAKE' ORDER BY b.id")
+    List<Long> findPendingIntakeIds();
+    
     @Query("SELECT b FROM Booking b WHERE b.deliveryLatitude IS NOT NULL AND b.deliveryLongitude IS NOT NULL ORDER BY b.startAt DESC")
     List<Booking> findLatestWithDestination(Pageable pageable);
     
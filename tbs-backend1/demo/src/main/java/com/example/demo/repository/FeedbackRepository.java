@@ -1,6 +1,7 @@
 package com.example.demo.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -15,6 +16,15 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
 
     @Query("SELECT COALESCE(AVG(f.rating),0) FROM Feedback f WHERE f.tractor.id = :tractorId")
     Double averageRatingForTractor(@Param("tractorId") Long tractorId);
+
+    // tractor_stats rating totals recomputed from scratch, for the reconciler
+    @Query("SELECT f.tractor.id AS tractorId, SUM(f.rating) AS ratingSum, COUNT(f) AS ratingCount " +
+           "FROM Feedback f GROUP BY f.tractor.id")
+    List<TractorRatingTotalsView> sumRatingsByTractor();
+
+    @Query("SELECT f.tractor.id AS tractorId, SUM(f.rating) AS ratingSum, COUNT(f) AS ratingCount " +
+           "FROM Feedback f WHERE f.tractor.id = :tractorId GROUP BY f.tractor.id")
+    Optional<TractorRatingTotalsView> sumRatingsForTractor(@Param("tractorId") Long tractorId);
 }
 
 
@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+// Compact booking row for the tractor owner's booking feed
+public interface OwnerBookingView {
+    Long getBookingId();
+    Long getTractorId();
+    String getTractorName();
+    Long getCustomerId();
+    String getCustomerName();
+    String getCustomerPhone();
+    LocalDateTime getStartAt();
+    LocalDateTime getEndAt();
+    String getStatus();
+    String getAdminStatus();
+    String getDeliveryStatus();
+    Double getTotalAmount();
+    String getDeliveryAddress();
+}
@@ -1,10 +1,20 @@
 package com.example.demo.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.model.Payment;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
-}
-
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = 'SUCCESS' WHERE p.booking.id = :bookingId " +
+           "AND p.method = 'CASH_ON_DELIVERY' AND p.status = 'PENDING'")
+    int settlePendingCashOnDelivery(@Param("bookingId") Long bookingId);
 
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = 'SUCCESS' WHERE p.booking.id = :bookingId " +
+           "AND p.method = 'CASH_ON_DELIVERY' AND p.status <> 'SUCCESS'")
+    int settleCashOnDelivery(@Param("bookingId") Long bookingId);
+}
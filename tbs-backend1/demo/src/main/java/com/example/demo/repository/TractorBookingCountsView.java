@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+// Booking counters of one tractor as recomputed from the bookings table
+public interface TractorBookingCountsView {
+    Long getTractorId();
+    Long getTotalBookings();
+    Long getActiveBookings();
+    Long getCompletedBookings();
+}
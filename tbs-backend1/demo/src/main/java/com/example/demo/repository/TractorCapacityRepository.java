@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.TractorCapacity;
+
+import jakarta.persistence.LockModeType;
+
+public interface TractorCapacityRepository extends JpaRepository<TractorCapacity, TractorCapacity.Key> {
+    // Takes one unit in every bucket of the window that still has one free; callers compare the row count
+    @Modifying
+    @Query("UPDATE TractorCapacity c SET c.reserved = c.reserved + 1 WHERE c.tractorId = :tractorId " +
+           "AND c.bucketStart >= :from AND c.bucketStart < :to AND c.reserved < :quantity")
+    int reserve(@Param("tractorId") Long tractorId, @Param("from") LocalDateTime from,
+                @Param("to") LocalDateTime to, @Param("quantity") int quantity);
+
+    // Buckets of the window already at quantity, locked until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.bucketStart FROM TractorCapacity c WHERE c.tractorId = :tractorId " +
+           "AND c.bucketStart >= :from AND c.bucketStart < :to AND c.reserved >= :quantity ORDER BY c.bucketStart")
+    List<LocalDateTime> lockFullBuckets(@Param("tractorId") Long tractorId, @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to, @Param("quantity") int quantity);
+
+    // Unconditional increment, for a full bucket whose bookings were found not to overlap the new one
+    @Modifying
+    @Query("UPDATE TractorCapacity c SET c.reserved = c.reserved + 1 WHERE c.tractorId = :tractorId AND c.bucketStart = :bucket")
+    int add(@Param("tractorId") Long tractorId, @Param("bucket") LocalDateTime bucket);
+
+    @Modifying
+    @Query("UPDATE TractorCapacity c SET c.reserved = c.reserved - 1 WHERE c.tractorId = :tractorId " +
+           "AND c.bucketStart >= :from AND c.bucketStart < :to AND c.reserved > 0")
+    int release(@Param("tractorId") Long tractorId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(MAX(c.reserved), 0) FROM TractorCapacity c WHERE c.tractorId = :tractorId " +
+           "AND c.bucketStart >= :from AND c.bucketStart < :to")
+    int peakReserved(@Param("tractorId") Long tractorId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM TractorCapacity c WHERE c.bucketStart < :before")
+    int deleteBucketsBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+// Minimal tractor shape needed to rebuild the in-memory spatial index
+public interface TractorPositionView {
+    Long getTractorId();
+    Double getLatitude();
+    Double getLongitude();
+}
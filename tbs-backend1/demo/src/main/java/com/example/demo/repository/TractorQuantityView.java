@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+// Just enough of a tractor to evaluate availability against its unit count
+public interface TractorQuantityView {
+    Long getTractorId();
+    Integer getQuantity();
+}
@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+// Rating totals of one tractor as recomputed from the feedback table
+public interface TractorRatingTotalsView {
+    Long getTractorId();
+    Long getRatingSum();
+    Long getRatingCount();
+}
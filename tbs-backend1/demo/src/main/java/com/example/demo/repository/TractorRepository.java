@@ -1,15 +1,44 @@
 package com.example.demo.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.Tractor;
 import com.example.demo.model.User;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface TractorRepository extends JpaRepository<Tractor, Long> {
     List<Tractor> findByOwner(User owner);
+
+    // Positions of publicly listed tractors; must stay in line with TractorSpatialIndex.isIndexable
+    @Query("SELECT t.id AS tractorId, t.latitude AS latitude, t.longitude AS longitude FROM Tractor t " +
+           "WHERE (t.approvalStatus IS NULL OR t.approvalStatus = 'APPROVED') " +
+           "AND t.latitude IS NOT NULL AND t.longitude IS NOT NULL")
+    List<TractorPositionView> findIndexablePositions();
+
+    @Query("SELECT t.id AS tractorId, t.quantity AS quantity FROM Tractor t WHERE t.id IN :ids")
+    List<TractorQuantityView> findQuantities(@Param("ids") Collection<Long> ids);
+
+    // Rows written before approval_status, hourly_rate and rating became NOT NULL (see Tractor.fillSearchDefaults)
+    @Modifying
+    @Query("UPDATE Tractor t SET t.approvalStatus = COALESCE(t.approvalStatus, 'APPROVED'), " +
+           "t.hourlyRate = COALESCE(t.hourlyRate, 0), t.rating = COALESCE(t.rating, 0) " +
+           "WHERE t.approvalStatus IS NULL OR t.hourlyRate IS NULL OR t.rating IS NULL")
+    int backfillSearchColumns();
+
+    // Row lock that serialises booking admission per tractor; see BookingAdmissionService
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Tractor t WHERE t.id = :id")
+    Optional<Tractor> findByIdForUpdate(@Param("id") Long id);
 }
 
 
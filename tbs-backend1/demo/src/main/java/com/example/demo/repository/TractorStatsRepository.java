@@ -0,0 +1,46 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.TractorStats;
+
+import jakarta.persistence.LockModeType;
+
+public interface TractorStatsRepository extends JpaRepository<TractorStats, Long> {
+    // Relative updates, so concurrent writers never overwrite each other's increments
+    @Modifying
+    @Query("UPDATE TractorStats s SET s.totalBookings = s.totalBookings + :total, " +
+           "s.activeBookings = s.activeBookings + :active, " +
+           "s.completedBookings = s.completedBookings + :completed, s.updatedAt = :now " +
+           "WHERE s.tractorId = :tractorId")
+    int addBookingCounts(@Param("tractorId") Long tractorId, @Param("total") long total,
+                         @Param("active") long active, @Param("completed") long completed,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE TractorStats s SET s.ratingSum = s.ratingSum + :rating, s.ratingCount = s.ratingCount + 1, " +
+           "s.updatedAt = :now WHERE s.tractorId = :tractorId")
+    int addRating(@Param("tractorId") Long tractorId, @Param("rating") long rating, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO tractor_stats " +
+                   "(tractor_id, total_bookings, active_bookings, completed_bookings, rating_sum, rating_count, updated_at) " +
+                   "VALUES (:tractorId, 0, 0, 0, 0, 0, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("tractorId") Long tractorId, @Param("now") LocalDateTime now);
+
+    // Reads the row from the database even if a stale copy is in the persistence context
+    @Query("SELECT CASE WHEN s.ratingCount > 0 THEN (1.0 * s.ratingSum) / s.ratingCount ELSE 0.0 END " +
+           "FROM TractorStats s WHERE s.tractorId = :tractorId")
+    Double averageRating(@Param("tractorId") Long tractorId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TractorStats s WHERE s.tractorId = :tractorId")
+    Optional<TractorStats> findForUpdate(@Param("tractorId") Long tractorId);
+}
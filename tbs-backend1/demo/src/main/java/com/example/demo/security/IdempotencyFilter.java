@@ -0,0 +1,190 @@
+package com.example.demo.security;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.demo.util.HashUtil;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Honours the Idempotency-Key header on the booking and payment POSTs that clients retry.
+ *
+ * The first request with a key runs normally and, if it succeeds (2xx), its response is
+ * stored; repeats from the same user get that response back without touching the
+ * controller. Other responses are not stored, so a request that was rejected or failed can
+ * be corrected and retried with the same key. Bodies over app.idempotency.max-body-bytes
+ * are not kept; repeats of such a request get 409 instead of running twice. Runs as a plain
+ * servlet filter after the security chain, so rejected logins never claim a key.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> PATHS = Set.of(
+        "/api/bookings",
+        "/api/bookings/jobs",
+        "/api/payments/verify-esewa",
+        "/api/payments/cash-on-delivery"
+    );
+
+    private final IdempotencyStore idempotencyStore;
+    private final int maxBodyBytes;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore,
+                             @Value("${app.idempotency.max-body-bytes:65536}") int maxBodyBytes) {
+        this.idempotencyStore = idempotencyStore;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(HEADER) == null
+            || !PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        // Keys are per user and endpoint, so clients cannot see each other's responses
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String user = auth != null && auth.getName() != null ? auth.getName() : "anonymous";
+        String scopedKey = user + " " + request.getRequestURI() + " " + key;
+
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        IdempotencyStore.Claim claim = idempotencyStore.claim(scopedKey, HashUtil.sha256(new String(body, StandardCharsets.UTF_8)));
+        switch (claim.getOutcome()) {
+            case REPLAY -> {
+                IdempotencyStore.StoredResponse stored = claim.getResponse();
+                if (stored.getBody() == null) {
+                    writeError(response, HttpServletResponse.SC_CONFLICT,
+                        "A request with this Idempotency-Key already succeeded; its response is too large to replay");
+                    return;
+                }
+                response.setStatus(stored.getStatus());
+                if (stored.getContentType() != null) {
+                    response.setContentType(stored.getContentType());
+                }
+                response.setHeader(REPLAYED_HEADER, "true");
+                response.getOutputStream().write(stored.getBody());
+                return;
+            }
+            case IN_PROGRESS -> {
+                writeError(response, HttpServletResponse.SC_CONFLICT, "A request with this Idempotency-Key is still being processed");
+                return;
+            }
+            case MISMATCH -> {
+                writeError(response, 422, "Idempotency-Key was already used with a different request body");
+                return;
+            }
+            case CLAIMED -> {
+                // Runs below
+            }
+        }
+
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), captured);
+            int status = captured.getStatus();
+            if (status >= 200 && status < 300) {
+                byte[] responseBody = captured.getContentSize() <= maxBodyBytes ? captured.getContentAsByteArray() : null;
+                idempotencyStore.complete(scopedKey, new IdempotencyStore.StoredResponse(status, captured.getContentType(), responseBody));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.release(scopedKey);
+            }
+            captured.copyBodyToResponse();
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    // The body has to be read up front for the fingerprint, so hand the controller a copy
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The whole body is already in memory, so it is available, and then all read, at once
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
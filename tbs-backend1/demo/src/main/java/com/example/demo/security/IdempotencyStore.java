@@ -0,0 +1,124 @@
+package com.example.demo.security;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, expiring store of responses keyed by Idempotency-Key.
+ *
+ * A key is claimed before its request runs and completed with the response afterwards.
+ * The least recently used keys are dropped once maxEntries is reached, and every key
+ * expires after the ttl.
+ */
+@Component
+public class IdempotencyStore {
+    public enum Outcome { CLAIMED, REPLAY, IN_PROGRESS, MISMATCH }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    @Autowired
+    public IdempotencyStore(@Value("${app.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this(maxEntries, Duration.ofHours(ttlHours));
+    }
+
+    public IdempotencyStore(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Claim the key for a request with the given body fingerprint, or report why it cannot
+     * run: a stored response to replay, the first request still running, or the key having
+     * been used with a different body.
+     */
+    public synchronized Claim claim(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= now) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            entries.put(key, new Entry(fingerprint, now + ttlMillis));
+            return new Claim(Outcome.CLAIMED, null);
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return new Claim(Outcome.MISMATCH, null);
+        }
+        return entry.response != null ? new Claim(Outcome.REPLAY, entry.response) : new Claim(Outcome.IN_PROGRESS, null);
+    }
+
+    public synchronized void complete(String key, StoredResponse response) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.response = response;
+        }
+    }
+
+    // Forget a claim whose request failed, so a retry runs it again
+    public synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.response == null) {
+            entries.remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long expiresAt;
+        StoredResponse response;
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static final class Claim {
+        private final Outcome outcome;
+        private final StoredResponse response;
+
+        Claim(Outcome outcome, StoredResponse response) {
+            this.outcome = outcome;
+            this.response = response;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public StoredResponse getResponse() { return response; }
+    }
+
+    public static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        public StoredResponse(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public int getStatus() { return status; }
+        public String getContentType() { return contentType; }
+        // Null when the response was too large to keep
+        public byte[] getBody() { return body; }
+    }
+}
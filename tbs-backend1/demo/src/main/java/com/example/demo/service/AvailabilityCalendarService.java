@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Tractor;
+import com.example.demo.repository.BookingIntervalView;
+import com.example.demo.repository.BookingRepository;
+
+/**
+ * Per-slot availability of a tractor over a time window, for calendar views.
+ *
+ * The overlapping bookings are read once, turned into +1/-1 events and swept in time
+ * order together with the slot boundaries, so the cost is one query plus
+ * O((bookings + slots) log bookings) regardless of the number of slots.
+ */
+@Service
+public class AvailabilityCalendarService {
+    public static final Duration MIN_GRANULARITY = Duration.ofMinutes(15);
+    public static final int MAX_SLOTS = 2000;
+
+    private final BookingRepository bookingRepository;
+
+    public AvailabilityCalendarService(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Parse "hour", "day" or an ISO-8601 duration such as PT30M
+     */
+    public static Duration parseGranularity(String granularity) {
+        if (granularity == null || granularity.isBlank() || "hour".equalsIgnoreCase(granularity)) {
+            return Duration.ofHours(1);
+        }
+        if ("day".equalsIgnoreCase(granularity)) {
+            return Duration.ofDays(1);
+        }
+        Duration step;
+        try {
+            step = Duration.parse(granularity.toUpperCase());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("granularity must be hour, day or an ISO-8601 duration such as PT30M");
+        }
+        if (step.compareTo(MIN_GRANULARITY) < 0) {
+            throw new IllegalArgumentException("granularity must be at least 15 minutes");
+        }
+        return step;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> calendar(Tractor tractor, LocalDateTime from, LocalDateTime to, Duration step) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        long slotCount = (Duration.between(from, to).toMinutes() + step.toMinutes() - 1) / step.toMinutes();
+        if (slotCount > MAX_SLOTS) {
+            throw new IllegalArgumentException("Too many slots; use a coarser granularity or a shorter range");
+        }
+        int quantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
+
+        List<BookingIntervalView> bookings = bookingRepository.findIndexableIntervalsOverlapping(tractor.getId(), from, to);
+        // Ends sorted separately; starts already come ordered from the query
+        LocalDateTime[] starts = new LocalDateTime[bookings.size()];
+        LocalDateTime[] ends = new LocalDateTime[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            starts[i] = bookings.get(i).getStartAt();
+            ends[i] = bookings.get(i).getEndAt();
+        }
+        Arrays.sort(ends);
+
+        List<Map<String, Object>> slots = new ArrayList<>();
+        int nextStart = 0;
+        int nextEnd = 0;
+        int active = 0;
+        for (LocalDateTime slotStart = from; slotStart.isBefore(to); slotStart = slotStart.plus(step)) {
+            LocalDateTime slotEnd = slotStart.plus(step).isBefore(to) ? slotStart.plus(step) : to;
+
+            // Bring the sweep up to the slot start; bookings are half-open [start, end)
+            while (nextEnd < ends.length && !ends[nextEnd].isAfter(slotStart)) {
+                active--;
+                nextEnd++;
+            }
+            while (nextStart < starts.length && !starts[nextStart].isAfter(slotStart)) {
+                active++;
+                nextStart++;
+            }
+            int peak = active;
+
+            // Events inside the slot; at equal times an end frees the unit before a start takes it
+            while (true) {
+                boolean endNext = nextEnd < ends.length && ends[nextEnd].isBefore(slotEnd);
+                boolean startNext = nextStart < starts.length && starts[nextStart].isBefore(slotEnd);
+                if (endNext && (!startNext || !ends[nextEnd].isAfter(starts[nextStart]))) {
+                    active--;
+                    nextEnd++;
+                } else if (startNext) {
+                    active++;
+                    nextStart++;
+                    peak = Math.max(peak, active);
+                } else {
+                    break;
+                }
+            }
+
+            int availableUnits = Math.max(0, quantity - peak);
+            Map<String, Object> slot = new HashMap<>();
+            slot.put("start", slotStart.toString());
+            slot.put("end", slotEnd.toString());
+            slot.put("bookedUnits", peak);
+            slot.put("availableUnits", availableUnits);
+            slot.put("status", availableUnits == 0 ? "FULL" : peak == 0 ? "FREE" : "PARTIAL");
+            slots.add(slot);
+        }
+
+        Map<String, Object> calendar = new HashMap<>();
+        calendar.put("tractorId", tractor.getId());
+        calendar.put("quantity", quantity);
+        calendar.put("from", from.toString());
+        calendar.put("to", to.toString());
+        calendar.put("granularityMinutes", step.toMinutes());
+        calendar.put("slots", slots);
+        return calendar;
+    }
+}
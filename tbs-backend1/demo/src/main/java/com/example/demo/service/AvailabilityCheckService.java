@@ -0,0 +1,177 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.repository.BookingIntervalView;
+import com.example.demo.repository.TractorQuantityView;
+import com.example.demo.repository.TractorRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Answers many (tractorId, startAt, endAt) availability questions at once: one query for
+ * the tractors' unit counts, one overlap query bounded by each tractor's own windows, then
+ * an in-memory peak per question.
+ */
+@Service
+public class AvailabilityCheckService {
+    public static final int MAX_CHECKS = 200;
+
+    private final EntityManager entityManager;
+    private final TractorRepository tractorRepository;
+
+    public AvailabilityCheckService(EntityManager entityManager, TractorRepository tractorRepository) {
+        this.entityManager = entityManager;
+        this.tractorRepository = tractorRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> check(List<Map<String, Object>> checks) {
+        if (checks.size() > MAX_CHECKS) {
+            throw new IllegalArgumentException("At most " + MAX_CHECKS + " checks per request");
+        }
+
+        // Parse everything first so the queries can cover the whole batch
+        List<Window> windows = new ArrayList<>();
+        Map<Long, Window> ranges = new LinkedHashMap<>();
+        for (Map<String, Object> check : checks) {
+            Window window = Window.parse(check);
+            windows.add(window);
+            if (window.error == null) {
+                ranges.merge(window.tractorId, window, Window::span);
+            }
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, List<BookingIntervalView>> intervals = new HashMap<>();
+        if (!ranges.isEmpty()) {
+            for (TractorQuantityView view : tractorRepository.findQuantities(ranges.keySet())) {
+                quantities.put(view.getTractorId(), view.getQuantity() != null ? view.getQuantity() : 1);
+            }
+            for (BookingIntervalView view : findOverlapping(ranges.values())) {
+                intervals.computeIfAbsent(view.getTractorId(), id -> new ArrayList<>()).add(view);
+            }
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Window window : windows) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("tractorId", window.tractorId);
+            result.put("startAt", window.startAt != null ? window.startAt.toString() : null);
+            result.put("endAt", window.endAt != null ? window.endAt.toString() : null);
+            Integer quantity = window.error == null ? quantities.get(window.tractorId) : null;
+            if (window.error != null) {
+                result.put("error", window.error);
+            } else if (quantity == null) {
+                result.put("error", "Tractor not found");
+            } else {
+                // Same rule as booking approval: the most bookings in use at once within the window
+                int overlapping = CapacityLedger.peakOverlap(intervals.getOrDefault(window.tractorId, List.of()),
+                    window.startAt, window.endAt, null);
+                long availableUnits = Math.max(0, quantity - overlapping);
+                result.put("quantity", quantity);
+                result.put("overlappingBookings", overlapping);
+                result.put("availableUnits", availableUnits);
+                result.put("available", availableUnits > 0);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    // Unit-holding bookings (as BookingRepository.findIndexableIntervals), each tractor read only
+    // within the span of its own windows; every OR branch is a range on idx_booking_tractor_window
+    private List<BookingIntervalView> findOverlapping(Iterable<Window> ranges) {
+        StringBuilder select = new StringBuilder(
+            "SELECT b.id, b.tractor.id, b.startAt, b.endAt FROM Booking b " +
+            "WHERE (b.adminStatus IS NULL OR b.adminStatus = 'APPROVED') " +
+            "AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED') " +
+            "AND (b.deliveryStatus IS NULL OR b.deliveryStatus <> 'RETURNED') AND (");
+        Map<String, Object> parameters = new HashMap<>();
+        int i = 0;
+        for (Window range : ranges) {
+            if (i > 0) {
+                select.append(" OR ");
+            }
+            select.append("(b.tractor.id = :tractor").append(i)
+                .append(" AND b.startAt < :to").append(i)
+                .append(" AND b.endAt > :from").append(i).append(")");
+            parameters.put("tractor" + i, range.tractorId);
+            parameters.put("from" + i, range.startAt);
+            parameters.put("to" + i, range.endAt);
+            i++;
+        }
+        select.append(")");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(select.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        List<BookingIntervalView> views = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            views.add(new Interval((Long) row[0], (Long) row[1], (LocalDateTime) row[2], (LocalDateTime) row[3]));
+        }
+        return views;
+    }
+
+    private static final class Window {
+        Long tractorId;
+        LocalDateTime startAt;
+        LocalDateTime endAt;
+        String error;
+
+        static Window parse(Map<String, Object> check) {
+            Window window = new Window();
+            try {
+                Object tractorId = check.get("tractorId");
+                window.tractorId = tractorId != null ? Long.valueOf(tractorId.toString()) : null;
+                window.startAt = check.get("startAt") != null ? LocalDateTime.parse(check.get("startAt").toString()) : null;
+                window.endAt = check.get("endAt") != null ? LocalDateTime.parse(check.get("endAt").toString()) : null;
+            } catch (RuntimeException e) {
+                window.error = "Invalid tractorId, startAt or endAt";
+                return window;
+            }
+            if (window.tractorId == null || window.startAt == null || window.endAt == null) {
+                window.error = "tractorId, startAt and endAt are required";
+            } else if (!window.startAt.isBefore(window.endAt)) {
+                window.error = "startAt must be before endAt";
+            }
+            return window;
+        }
+
+        // Smallest window of the same tractor covering both
+        static Window span(Window a, Window b) {
+            Window window = new Window();
+            window.tractorId = a.tractorId;
+            window.startAt = a.startAt.isBefore(b.startAt) ? a.startAt : b.startAt;
+            window.endAt = a.endAt.isAfter(b.endAt) ? a.endAt : b.endAt;
+            return window;
+        }
+    }
+
+    private static final class Interval implements BookingIntervalView {
+        private final Long bookingId;
+        private final Long tractorId;
+        private final LocalDateTime startAt;
+        private final LocalDateTime endAt;
+
+        Interval(Long bookingId, Long tractorId, LocalDateTime startAt, LocalDateTime endAt) {
+            this.bookingId = bookingId;
+            this.tractorId = tractorId;
+            this.startAt = startAt;
+            this.endAt = endAt;
+        }
+
+        @Override public Long getBookingId() { return bookingId; }
+        @Override public Long getTractorId() { return tractorId; }
+        @Override public LocalDateTime getStartAt() { return startAt; }
+        @Override public LocalDateTime getEndAt() { return endAt; }
+    }
+}
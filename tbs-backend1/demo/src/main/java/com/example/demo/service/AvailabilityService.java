@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.TractorView;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.TractorStats;
+
+/**
+ * Derived tractor availability: total bookings come from the tractor_stats counters, the
+ * current load and next free time from the in-memory booking interval index. No booking
+ * rows are counted on the read path.
+ */
+@Service
+public class AvailabilityService {
+    private final TractorStatsService tractorStatsService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    public AvailabilityService(TractorStatsService tractorStatsService, BookingIntervalIndex bookingIntervalIndex) {
+        this.tractorStatsService = tractorStatsService;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+    }
+
+    public Map<Long, Availability> snapshot(Collection<Long> tractorIds, LocalDateTime now) {
+        Map<Long, Availability> byTractor = new HashMap<>();
+        for (TractorStats stats : tractorStatsService.forTractors(tractorIds).values()) {
+            byTractor.put(stats.getTractorId(), of(stats, now));
+        }
+        return byTractor;
+    }
+
+    public Availability forTractor(Long tractorId, LocalDateTime now) {
+        return of(tractorStatsService.forTractor(tractorId), now);
+    }
+
+    private Availability of(TractorStats stats, LocalDateTime now) {
+        Long tractorId = stats.getTractorId();
+        return new Availability(
+            stats.getTotalBookings() != null ? stats.getTotalBookings() : 0,
+            bookingIntervalIndex.countActive(tractorId, now),
+            bookingIntervalIndex.latestActiveEnd(tractorId, now)
+        );
+    }
+
+    /**
+     * Read-only view of a tractor with derived status, availability, booking count and
+     * next available time. The entity itself is left untouched.
+     */
+    public TractorView view(Tractor tractor, Availability availability, LocalDateTime now) {
+        Integer quantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
+        long activeBookingsCount = availability.activeBookings;
+        int totalBookings = (int) availability.totalBookings;
+
+        // Only set unavailable when ALL tractors are booked (quantity reaches 0)
+        if (activeBookingsCount >= quantity && quantity > 0) {
+            return TractorView.of(tractor, false, totalBookings, "Booked",
+                availability.latestActiveEndAt(now).toString());
+        } else if (activeBookingsCount > 0) {
+            long availableCount = quantity - activeBookingsCount;
+            return TractorView.of(tractor, true, totalBookings,
+                String.format("Available (%d/%d)", availableCount, quantity),
+                availability.latestActiveEndAt(now).toString());
+        }
+        return TractorView.of(tractor, true, totalBookings, "Available", null);
+    }
+
+    public static final class Availability {
+        static final Availability NONE = new Availability(0, 0, null);
+
+        final long totalBookings;
+        final long activeBookings;
+        final LocalDateTime latestActiveEndAt;
+
+        Availability(long totalBookings, long activeBookings, LocalDateTime latestActiveEndAt) {
+            this.totalBookings = totalBookings;
+            this.activeBookings = activeBookings;
+            this.latestActiveEndAt = latestActiveEndAt;
+        }
+
+        public long getTotalBookings() { return totalBookings; }
+        public long getActiveBookings() { return activeBookings; }
+        public LocalDateTime getLatestActiveEndAt() { return latestActiveEndAt; }
+
+        LocalDateTime latestActiveEndAt(LocalDateTime fallback) {
+            return latestActiveEndAt != null ? latestActiveEndAt : fallback;
+        }
+    }
+}
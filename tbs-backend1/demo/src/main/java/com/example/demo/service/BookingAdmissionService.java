@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.repository.TractorRepository;
+
+/**
+ * Admits booking writes that may take a unit of a tractor.
+ *
+ * Each admission locks the tractor row first, so admissions for the same tractor run one
+ * after another while other tractors are unaffected. Under that lock the capacity check
+ * only reads this tractor's ledger buckets for the booking's window, and the save that
+ * follows reserves them in the same transaction.
+ */
+@Service
+public class BookingAdmissionService {
+    private final TractorRepository tractorRepository;
+    private final CapacityLedger capacityLedger;
+    private final BookingWriteService bookingWriteService;
+
+    public BookingAdmissionService(TractorRepository tractorRepository, CapacityLedger capacityLedger, BookingWriteService bookingWriteService) {
+        this.tractorRepository = tractorRepository;
+        this.capacityLedger = capacityLedger;
+        this.bookingWriteService = bookingWriteService;
+    }
+
+    /**
+     * Save the booking if its tractor still has a free unit for the booking's window.
+     * New bookings are always checked; existing ones only when this write makes them start
+     * holding a unit. Rejections throw 400 and roll back the whole transaction.
+     */
+    @Transactional
+    public Booking admit(Booking booking) {
+        return admit(booking, booking.getId() == null);
+    }
+
+    /**
+     * Admit a booking that was stored by async intake but not yet checked, with the same
+     * check as a new booking
+     */
+    @Transactional
+    public Booking admitIntake(Booking booking) {
+        return admit(booking, true);
+    }
+
+    /**
+     * Admit every leg of a farm job or none of them. The job's tractors are locked in id
+     * order, so two jobs sharing tractors queue up instead of deadlocking, and each leg is
+     * checked like a single new booking: against the units approved bookings hold. Like any
+     * pending booking, a leg holds no unit until it is approved, so overlapping legs of one
+     * job are caught by the approval check rather than here.
+     */
+    @Transactional
+    public List<Booking> admitJob(List<Booking> legs) {
+        Map<Long, Tractor> locked = new TreeMap<>();
+        for (Booking leg : legs) {
+            locked.put(leg.getTractor().getId(), null);
+        }
+        for (Long tractorId : locked.keySet()) {
+            locked.put(tractorId, tractorRepository.findByIdForUpdate(tractorId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tractor not found")));
+        }
+
+        for (int i = 0; i < legs.size(); i++) {
+            Booking leg = legs.get(i);
+            Tractor tractor = locked.get(leg.getTractor().getId());
+            leg.setTractor(tractor);
+            int quantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
+            if (quantity <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Leg %d: %s is not available. All units are currently booked.", i + 1, tractor.getName()));
+            }
+            int reservedUnits = capacityLedger.unitsInUse(tractor.getId(), leg.getStartAt(), leg.getEndAt(), quantity, null);
+            if (reservedUnits >= quantity) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Leg %d: %s is fully booked for this time period. %d out of %d units are already reserved.",
+                        i + 1, tractor.getName(), reservedUnits, quantity));
+            }
+        }
+        return bookingWriteService.saveAll(legs);
+    }
+
+    private Booking admit(Booking booking, boolean isNew) {
+        // The lock must be the first statement, so the reads below see every earlier admission
+        Tractor tractor = tractorRepository.findByIdForUpdate(booking.getTractor().getId())
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tractor not found"));
+        int quantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
+
+        boolean takesUnit = BookingIntervalIndex.isIndexable(booking) && !(booking.isCounted() && booking.isCountedActive());
+        if (isNew || takesUnit) {
+            if (quantity <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tractor is not available. All units are currently booked.");
+            }
+            int reservedUnits = capacityLedger.unitsInUse(tractor.getId(), booking.getStartAt(), booking.getEndAt(), quantity, booking.getId());
+            if (reservedUnits >= quantity) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, isNew
+                    ? String.format("Tractor is fully booked for this time period. %d out of %d units are already reserved.", reservedUnits, quantity)
+                    : String.format("Cannot approve: All %d tractors are already booked for this time period", quantity));
+            }
+        }
+        return bookingWriteService.save(booking);
+    }
+}
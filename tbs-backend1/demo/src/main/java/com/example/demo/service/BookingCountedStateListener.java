@@ -0,0 +1,20 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.Booking;
+
+import jakarta.persistence.PostLoad;
+
+/**
+ * JPA listener on Booking: remembers the state a loaded booking was counted with, so
+ * BookingWriteService can apply only the difference to tractor_stats and tractor_capacity.
+ */
+@Component
+public class BookingCountedStateListener {
+
+    @PostLoad
+    public void onLoad(Booking booking) {
+        BookingWriteService.markCounted(booking);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.demo.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.util.EmailService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background half of async booking intake.
+ *
+ * BookingController stores the booking as PENDING_INTAKE and answers 202; a bounded pool
+ * of workers then runs admission and sends the notification emails. When the queue is
+ * full the booking simply waits: the sweeper picks up every PENDING_INTAKE row that is not
+ * queued, which also resumes intake after a restart.
+ *
+ * Each attempt runs in one transaction that locks the booking row first, so admission, the
+ * status change and the tractor's destination commit together and a booking picked up by
+ * two workers is only admitted once.
+ */
+@Service
+public class BookingIntakeService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingIntakeService.class);
+
+    public static final String PENDING_INTAKE = "PENDING_INTAKE";
+    public static final String INTAKE_REJECTED = "INTAKE_REJECTED";
+
+    private final BookingRepository bookingRepository;
+    private final TractorRepository tractorRepository;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final BookingWriteService bookingWriteService;
+    private final EmailService emailService;
+    private final TransactionTemplate intakeTransaction;
+    private final ThreadPoolTaskExecutor workers;
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+
+    public BookingIntakeService(BookingRepository bookingRepository, TractorRepository tractorRepository,
+                                BookingAdmissionService bookingAdmissionService, BookingWriteService bookingWriteService,
+                                EmailService emailService, PlatformTransactionManager transactionManager,
+                                @Value("${app.intake.workers:4}") int workerCount,
+                                @Value("${app.intake.queue-capacity:500}") int queueCapacity) {
+        this.bookingRepository = bookingRepository;
+        this.tractorRepository = tractorRepository;
+        this.bookingAdmissionService = bookingAdmissionService;
+        this.bookingWriteService = bookingWriteService;
+        this.emailService = emailService;
+        this.intakeTransaction = new TransactionTemplate(transactionManager);
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(workerCount);
+        this.workers.setMaxPoolSize(workerCount);
+        this.workers.setQueueCapacity(queueCapacity);
+        this.workers.setThreadNamePrefix("booking-intake-");
+        this.workers.initialize();
+    }
+
+    /**
+     * Queue a stored PENDING_INTAKE booking for admission. Never blocks; a full queue leaves
+     * the booking to the sweeper.
+     */
+    public void submit(Long bookingId) {
+        if (!queued.add(bookingId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(bookingId);
+                } catch (Exception e) {
+                    logger.error("Async intake failed for booking {}", bookingId, e);
+                } finally {
+                    queued.remove(bookingId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(bookingId);
+            deferred.incrementAndGet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        sweep();
+    }
+
+    @Scheduled(fixedDelayString = "${app.intake.sweep-interval-ms:30000}",
+               initialDelayString = "${app.intake.sweep-interval-ms:30000}")
+    public void sweep() {
+        for (Long bookingId : bookingRepository.findPendingIntakeIds()) {
+            submit(bookingId);
+        }
+    }
+
+    private void process(Long bookingId) {
+        Booking saved;
+        try {
+            saved = intakeTransaction.execute(status -> admit(bookingId));
+        } catch (ResponseStatusException e) {
+            intakeTransaction.executeWithoutResult(status -> reject(bookingId, e.getReason()));
+            return;
+        }
+        if (saved == null) {
+            return;
+        }
+        admitted.incrementAndGet();
+
+        emailService.sendBookingCreatedEmail(saved);
+        emailService.sendTractorOwnerNewBookingEmail(saved);
+    }
+
+    private Booking admit(Long bookingId) {
+        // A locking read, so admission's tractor lock still comes before this transaction's snapshot
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId).orElse(null);
+        if (booking == null || !PENDING_INTAKE.equals(booking.getStatus())) {
+            return null;
+        }
+        booking.setStatus("PENDING");
+        Booking saved = bookingAdmissionService.admitIntake(booking);
+
+        // The tractor row is locked by admission; this is the managed instance, flushed at commit
+        Tractor tractor = tractorRepository.findById(saved.getTractor().getId()).orElseThrow();
+        if (saved.getDeliveryLatitude() != null && saved.getDeliveryLongitude() != null
+            && tractor.getDestinationLatitude() == null && tractor.getDestinationLongitude() == null) {
+            tractor.setDestinationLatitude(saved.getDeliveryLatitude());
+            tractor.setDestinationLongitude(saved.getDeliveryLongitude());
+            tractor.setDestinationAddress(saved.getDeliveryAddress());
+        }
+        return saved;
+    }
+
+    private void reject(Long bookingId, String reason) {
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId).orElse(null);
+        if (booking == null || !PENDING_INTAKE.equals(booking.getStatus())) {
+            return;
+        }
+        booking.setStatus(INTAKE_REJECTED);
+        booking.setIntakeError(reason);
+        bookingWriteService.save(booking);
+        rejected.incrementAndGet();
+    }
+
+    public int getQueueDepth() { return workers.getThreadPoolExecutor().getQueue().size(); }
+    public int getActiveWorkers() { return workers.getActiveCount(); }
+    public long getAdmitted() { return admitted.get(); }
+    public long getRejected() { return rejected.get(); }
+    public long getDeferred() { return deferred.get(); }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
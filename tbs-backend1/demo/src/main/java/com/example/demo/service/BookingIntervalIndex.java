@@ -0,0 +1,278 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.Booking;
+import com.example.demo.repository.BookingIntervalView;
+import com.example.demo.repository.BookingRepository;
+
+/**
+ * In-process index of the bookings that currently hold a tractor unit (approved and
+ * PENDING/PAID/DELIVERED/CONFIRMED, not yet returned), kept per tractor as intervals.
+ *
+ * Each tractor keeps its start and end times in two sorted arrays, so the number of
+ * bookings overlapping [start, end) is #(starts &lt; end) - #(ends &lt;= start), i.e. two
+ * binary searches. Writers replace the per-tractor snapshot; readers never lock.
+ */
+@Component
+public class BookingIntervalIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookingIntervalIndex.class);
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, TractorIntervals> byTractor = new ConcurrentHashMap<>();
+    // bookingId -> tractorId, so a booking moved or removed can be found without a scan
+    private final Map<Long, Long> tractorOfBooking = new ConcurrentHashMap<>();
+
+    public BookingIntervalIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Whether a booking occupies a tractor unit. Must stay in line with
+     * BookingRepository.findIndexableIntervals.
+     */
+    public static boolean isIndexable(Booking booking) {
+        if (booking == null || booking.getTractor() == null || booking.getStartAt() == null || booking.getEndAt() == null) {
+            return false;
+        }
+        String adminStatus = booking.getAdminStatus();
+        boolean isApproved = adminStatus == null || "APPROVED".equals(adminStatus);
+        String status = booking.getStatus();
+        boolean isActive = "PENDING".equals(status) || "PAID".equals(status) ||
+                           "DELIVERED".equals(status) || "CONFIRMED".equals(status);
+        boolean notReturned = !"RETURNED".equals(booking.getDeliveryStatus());
+        return isApproved && isActive && notReturned;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<BookingIntervalView> intervals = bookingRepository.findIndexableIntervals();
+        Map<Long, Map<Long, long[]>> grouped = new HashMap<>();
+        for (BookingIntervalView view : intervals) {
+            grouped.computeIfAbsent(view.getTractorId(), id -> new HashMap<>())
+                .put(view.getBookingId(), new long[] { toEpoch(view.getStartAt()), toEpoch(view.getEndAt()) });
+        }
+        synchronized (this) {
+            byTractor.clear();
+            tractorOfBooking.clear();
+            grouped.forEach((tractorId, bookings) -> {
+                byTractor.put(tractorId, new TractorIntervals(bookings));
+                bookings.keySet().forEach(bookingId -> tractorOfBooking.put(bookingId, tractorId));
+            });
+        }
+        logger.info("Booking interval index rebuilt with {} bookings across {} tractors", intervals.size(), grouped.size());
+    }
+
+    /**
+     * Bring the index in line with the current state of a booking: insert or move it if it
+     * holds a unit, drop it otherwise.
+     */
+    public synchronized void sync(Booking booking) {
+        if (booking == null || booking.getId() == null) {
+            return;
+        }
+        Long bookingId = booking.getId();
+        remove(bookingId);
+        if (isIndexable(booking)) {
+            Long tractorId = booking.getTractor().getId();
+            long[] interval = { toEpoch(booking.getStartAt()), toEpoch(booking.getEndAt()) };
+            byTractor.compute(tractorId, (id, intervals) ->
+                (intervals != null ? intervals : TractorIntervals.EMPTY).with(bookingId, interval));
+            tractorOfBooking.put(bookingId, tractorId);
+        }
+    }
+
+    /**
+     * Drop a deleted booking once the surrounding transaction commits (at once without one)
+     */
+    public void removeAfterCommit(Long bookingId) {
+        if (bookingId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(bookingId);
+                }
+            });
+        } else {
+            remove(bookingId);
+        }
+    }
+
+    public synchronized void remove(Long bookingId) {
+        Long tractorId = tractorOfBooking.remove(bookingId);
+        if (tractorId != null) {
+            byTractor.computeIfPresent(tractorId, (id, intervals) -> intervals.without(bookingId));
+        }
+    }
+
+    /**
+     * Number of indexed bookings of a tractor overlapping [start, end)
+     */
+    public long countOverlapping(Long tractorId, LocalDateTime start, LocalDateTime end) {
+        return countOverlapping(tractorId, start, end, null);
+    }
+
+    public long countOverlapping(Long tractorId, LocalDateTime start, LocalDateTime end, Long excludeBookingId) {
+        TractorIntervals intervals = byTractor.getOrDefault(tractorId, TractorIntervals.EMPTY);
+        long from = toEpoch(start);
+        long to = toEpoch(end);
+        long count = intervals.countOverlapping(from, to);
+        long[] excluded = excludeBookingId != null ? intervals.byBooking.get(excludeBookingId) : null;
+        if (excluded != null && excluded[0] < to && excluded[1] > from) {
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * Number of indexed bookings of a tractor that have not ended yet (current or upcoming)
+     */
+    public long countActive(Long tractorId, LocalDateTime now) {
+        return countActive(tractorId, now, null);
+    }
+
+    public long countActive(Long tractorId, LocalDateTime now, Long excludeBookingId) {
+        TractorIntervals intervals = byTractor.getOrDefault(tractorId, TractorIntervals.EMPTY);
+        long at = toEpoch(now);
+        long count = intervals.countEndingAfter(at);
+        long[] excluded = excludeBookingId != null ? intervals.byBooking.get(excludeBookingId) : null;
+        if (excluded != null && excluded[1] > at) {
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * Latest end time among indexed bookings of a tractor that have not ended yet
+     */
+    public LocalDateTime latestActiveEnd(Long tractorId, LocalDateTime now) {
+        TractorIntervals intervals = byTractor.getOrDefault(tractorId, TractorIntervals.EMPTY);
+        int n = intervals.ends.length;
+        if (n == 0 || intervals.ends[n - 1] <= toEpoch(now)) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(intervals.ends[n - 1], 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Compare the index with the database and describe any drift
+     */
+    public Map<String, Object> checkConsistency() {
+        Map<Long, BookingIntervalView> expected = new HashMap<>();
+        for (BookingIntervalView view : bookingRepository.findIndexableIntervals()) {
+            expected.put(view.getBookingId(), view);
+        }
+
+        List<Long> missing = new ArrayList<>();
+        List<Long> mismatched = new ArrayList<>();
+        for (BookingIntervalView view : expected.values()) {
+            Long tractorId = tractorOfBooking.get(view.getBookingId());
+            TractorIntervals intervals = tractorId != null ? byTractor.get(tractorId) : null;
+            long[] interval = intervals != null ? intervals.byBooking.get(view.getBookingId()) : null;
+            if (interval == null) {
+                missing.add(view.getBookingId());
+            } else if (!tractorId.equals(view.getTractorId())
+                    || interval[0] != toEpoch(view.getStartAt())
+                    || interval[1] != toEpoch(view.getEndAt())) {
+                mismatched.add(view.getBookingId());
+            }
+        }
+
+        Set<Long> stale = new HashSet<>(tractorOfBooking.keySet());
+        stale.removeAll(expected.keySet());
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("consistent", missing.isEmpty() && mismatched.isEmpty() && stale.isEmpty());
+        report.put("indexedBookings", tractorOfBooking.size());
+        report.put("expectedBookings", expected.size());
+        report.put("missing", missing);
+        report.put("mismatched", mismatched);
+        report.put("stale", new ArrayList<>(stale));
+        return report;
+    }
+
+    private static long toEpoch(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class TractorIntervals {
+        static final TractorIntervals EMPTY = new TractorIntervals(Collections.emptyMap());
+
+        final Map<Long, long[]> byBooking;
+        final long[] starts;
+        final long[] ends;
+
+        TractorIntervals(Map<Long, long[]> byBooking) {
+            this.byBooking = byBooking;
+            this.starts = new long[byBooking.size()];
+            this.ends = new long[byBooking.size()];
+            int i = 0;
+            for (long[] interval : byBooking.values()) {
+                starts[i] = interval[0];
+                ends[i] = interval[1];
+                i++;
+            }
+            Arrays.sort(starts);
+            Arrays.sort(ends);
+        }
+
+        TractorIntervals with(Long bookingId, long[] interval) {
+            Map<Long, long[]> copy = new HashMap<>(byBooking);
+            copy.put(bookingId, interval);
+            return new TractorIntervals(copy);
+        }
+
+        TractorIntervals without(Long bookingId) {
+            if (!byBooking.containsKey(bookingId)) {
+                return this;
+            }
+            Map<Long, long[]> copy = new HashMap<>(byBooking);
+            copy.remove(bookingId);
+            return copy.isEmpty() ? null : new TractorIntervals(copy);
+        }
+
+        long countOverlapping(long from, long to) {
+            return countBelow(starts, to) - countBelow(ends, from + 1);
+        }
+
+        long countEndingAfter(long at) {
+            return ends.length - countBelow(ends, at + 1);
+        }
+
+        // Number of values strictly below the bound
+        private static int countBelow(long[] sorted, long bound) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < bound) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.Booking;
+
+import jakarta.persistence.PostRemove;
+
+/**
+ * JPA listener on Booking: drops deleted bookings from BookingIntervalIndex, including
+ * those removed by the cascade when their customer is deleted. Inserts and updates go
+ * through BookingWriteService.
+ */
+@Component
+public class BookingIntervalIndexListener {
+    // Resolved lazily: entity listeners are created while the EntityManagerFactory is still being built
+    private final ObjectProvider<BookingIntervalIndex> intervalIndex;
+
+    public BookingIntervalIndexListener(ObjectProvider<BookingIntervalIndex> intervalIndex) {
+        this.intervalIndex = intervalIndex;
+    }
+
+    @PostRemove
+    public void onRemove(Booking booking) {
+        BookingIntervalIndex index = intervalIndex.getIfAvailable();
+        if (index != null) {
+            index.removeAfterCommit(booking.getId());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Paginated booking lists as flat rows instead of entity graphs.
+ *
+ * Only the requested fields are selected, and tractors/users are joined only when one of
+ * their fields is asked for. Pages are keyset pages on (sort field, id): the cursor holds the
+ * last row's values, so page 5000 costs the same as page 1.
+ */
+@Service
+public class BookingListService {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private static final Map<String, String> FIELDS = new LinkedHashMap<>();
+    static {
+        FIELDS.put("id", "b.id");
+        FIELDS.put("tractorId", "b.tractor.id");
+        FIELDS.put("tractorName", "t.name");
+        FIELDS.put("customerId", "b.user.id");
+        FIELDS.put("customerName", "u.name");
+        FIELDS.put("customerEmail", "u.email");
+        FIELDS.put("startAt", "b.startAt");
+        FIELDS.put("endAt", "b.endAt");
+        FIELDS.put("status", "b.status");
+        FIELDS.put("adminStatus", "b.adminStatus");
+        FIELDS.put("deliveryStatus", "b.deliveryStatus");
+        FIELDS.put("totalAmount", "b.totalAmount");
+        FIELDS.put("deliveryAddress", "b.deliveryAddress");
+        FIELDS.put("paymentReleased", "b.paymentReleased");
+        FIELDS.put("jobReference", "b.jobReference");
+    }
+    private static final Map<String, String> SORTS = Map.of("id", "b.id", "startAt", "b.startAt", "endAt", "b.endAt");
+
+    private final EntityManager entityManager;
+
+    public BookingListService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * One page of bookings, newest first by default. userId limits the list to one
+     * customer (null lists everyone's); a customer's list leaves out bookings still in, or
+     * refused by, async intake. Returns {items, nextCursor}; nextCursor is null on
+     * the last page. Unknown fields or sorts and malformed cursors throw
+     * IllegalArgumentException.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> page(Long userId, String status, String adminStatus, String fields,
+                                    String sort, String direction, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        List<String> selected = selectedFields(fields);
+        String sortField = sort != null ? sort : "id";
+        String sortPath = SORTS.get(sortField);
+        if (sortPath == null) {
+            throw new IllegalArgumentException("sort must be one of " + SORTS.keySet());
+        }
+        boolean ascending = "asc".equalsIgnoreCase(direction);
+        if (!ascending && direction != null && !"desc".equalsIgnoreCase(direction)) {
+            throw new IllegalArgumentException("direction must be asc or desc");
+        }
+
+        // Selected fields, then the sort key and id the next cursor is built from
+        StringBuilder select = new StringBuilder("SELECT ");
+        boolean joinTractor = false;
+        boolean joinUser = false;
+        for (String field : selected) {
+            String path = FIELDS.get(field);
+            joinTractor |= path.startsWith("t.");
+            joinUser |= path.startsWith("u.");
+            select.append(path).append(", ");
+        }
+        select.append(sortPath).append(", b.id FROM Booking b");
+        if (joinTractor) {
+            select.append(" JOIN b.tractor t");
+        }
+        if (joinUser) {
+            select.append(" JOIN b.user u");
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> where = new ArrayList<>();
+        if (userId != null) {
+            where.add("b.user.id = :userId");
+            where.add("b.status NOT IN ('PENDING_INTAKE', 'INTAKE_REJECTED')");
+            parameters.put("userId", userId);
+        }
+        if (status != null) {
+            where.add("b.status = :status");
+            parameters.put("status", status);
+        }
+        if (adminStatus != null) {
+            where.add("b.adminStatus = :adminStatus");
+            parameters.put("adminStatus", adminStatus);
+        }
+        String after = ascending ? ">" : "<";
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            Long cursorId = parseId(position[1]);
+            if ("id".equals(sortField)) {
+                where.add("b.id " + after + " :cursorId");
+            } else {
+                where.add("(" + sortPath + " " + after + " :cursorValue OR (" + sortPath + " = :cursorValue AND b.id " + after + " :cursorId))");
+                parameters.put("cursorValue", parseTime(position[0]));
+            }
+            parameters.put("cursorId", cursorId);
+        }
+        if (!where.isEmpty()) {
+            select.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        String order = ascending ? " ASC" : " DESC";
+        select.append(" ORDER BY ").append(sortPath).append(order);
+        if (!"id".equals(sortField)) {
+            select.append(", b.id").append(order);
+        }
+
+        TypedQuery<Object[]> query = entityManager.createQuery(select.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        List<Object[]> rows = query.getResultList();
+
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                item.put(selected.get(i), row[i]);
+            }
+            items.add(item);
+        }
+        String nextCursor = null;
+        if (rows.size() == limit) {
+            Object[] last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(last[selected.size()], last[selected.size() + 1]);
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", nextCursor);
+        return page;
+    }
+
+    private static List<String> selectedFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return new ArrayList<>(FIELDS.keySet());
+        }
+        List<String> selected = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!FIELDS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'. Available fields: " + FIELDS.keySet());
+            }
+            if (!selected.contains(name)) {
+                selected.add(name);
+            }
+        }
+        return selected;
+    }
+
+    private static String encodeCursor(Object sortValue, Object id) {
+        String raw = sortValue + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length == 2) {
+                return position;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
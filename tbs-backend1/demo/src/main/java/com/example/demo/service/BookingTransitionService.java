@@ -0,0 +1,317 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Hibernate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Payment;
+import com.example.demo.repository.PaymentRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Booking lifecycle transitions as compare-and-set writes.
+ *
+ * Which (status, adminStatus, deliveryStatus, COD) states a transition may start from, and
+ * the state it leads to, is precomputed into a table. A transition is then one UPDATE whose
+ * WHERE clause repeats the state the caller saw, so of two concurrent requests on the same
+ * booking only the first changes the row and the other gets 409 instead of overwriting it.
+ * Units are still taken through the capacity ledger's conditional reserve in the same
+ * transaction, so no tractor lock is needed.
+ */
+@Service
+public class BookingTransitionService {
+    public enum Transition {
+        APPROVE, DENY, MARK_PAID, MARK_DELIVERED, COMPLETE,
+        START_USAGE("actualUsageStartTime"), STOP_USAGE("actualUsageStopTime"),
+        DELIVERY_ORDERED, DELIVERY_DELIVERING, DELIVERY_DELIVERED, DELIVERY_RETURNED;
+
+        // Attribute that must still be unset, so the transition can happen only once
+        private final String once;
+
+        Transition() { this(null); }
+        Transition(String once) { this.once = once; }
+
+        public static Transition toDeliveryStatus(String deliveryStatus) {
+            return Transition.valueOf("DELIVERY_" + deliveryStatus);
+        }
+    }
+
+    public record State(String status, String adminStatus, String deliveryStatus, boolean cod) {
+        public static State of(Booking booking) {
+            boolean cod = booking.getPayments() != null && booking.getPayments().stream()
+                .anyMatch(p -> "CASH_ON_DELIVERY".equals(p.getMethod()));
+            return new State(booking.getStatus(), booking.getAdminStatus(), booking.getDeliveryStatus(), cod);
+        }
+
+        State with(String status, String adminStatus, String deliveryStatus) {
+            return new State(status, adminStatus, deliveryStatus, cod);
+        }
+    }
+
+    // Either the state a transition leads to or why it is not allowed
+    public record Outcome(State target, String error) {
+        static Outcome to(State target) { return new Outcome(target, null); }
+        static Outcome reject(String error) { return new Outcome(null, error); }
+    }
+
+    private static final List<String> STATUSES = Arrays.asList("PENDING", "CONFIRMED", "PAID", "DELIVERED", "COMPLETED",
+        "CANCELLED", "REFUND_REQUESTED", BookingIntakeService.PENDING_INTAKE, BookingIntakeService.INTAKE_REJECTED);
+    private static final List<String> ADMIN_STATUSES = Arrays.asList(null, "PENDING_APPROVAL", "APPROVED", "DENIED");
+    private static final List<String> DELIVERY_STATUSES = Arrays.asList(null, "ORDERED", "DELIVERING", "DELIVERED", "RETURNED");
+
+    private static final Map<Transition, Map<State, Outcome>> TABLE = buildTable();
+
+    private final EntityManager entityManager;
+    private final PaymentRepository paymentRepository;
+    private final CapacityLedger capacityLedger;
+    private final BookingWriteService bookingWriteService;
+    private final TractorCatalogCache tractorCatalogCache;
+
+    public BookingTransitionService(EntityManager entityManager, PaymentRepository paymentRepository,
+                                    CapacityLedger capacityLedger, BookingWriteService bookingWriteService,
+                                    TractorCatalogCache tractorCatalogCache) {
+        this.entityManager = entityManager;
+        this.paymentRepository = paymentRepository;
+        this.capacityLedger = capacityLedger;
+        this.bookingWriteService = bookingWriteService;
+        this.tractorCatalogCache = tractorCatalogCache;
+    }
+
+    /**
+     * Why the transition is not allowed from the booking's current state, or null if it is
+     */
+    public static String rejection(Booking booking, Transition transition) {
+        return outcome(transition, State.of(booking)).error();
+    }
+
+    public static Outcome outcome(Transition transition, State from) {
+        Outcome outcome = TABLE.get(transition).get(from);
+        // States outside the known values (legacy rows) are decided by the rules directly
+        return outcome != null ? outcome : decide(transition, from);
+    }
+
+    /**
+     * Apply the transition, writing the given entity attributes in the same UPDATE. The
+     * booking is detached first, so neither the caller's in-memory changes nor this
+     * method's are flushed as a second, unconditional UPDATE. Throws 400 when the
+     * transition is not allowed or the tractor is fully booked, and 409 when the booking
+     * changed since it was read.
+     */
+    @Transactional
+    public Booking apply(Booking booking, Transition transition, Map<String, Object> changes) {
+        // Payments are lazy; State.of needs them after the booking is detached
+        if (entityManager.contains(booking)) {
+            Hibernate.initialize(booking.getPayments());
+        }
+        entityManager.detach(booking);
+        if (booking.getPayments() != null) {
+            booking.getPayments().forEach(entityManager::detach);
+        }
+
+        State from = State.of(booking);
+        Outcome outcome = outcome(transition, from);
+        if (outcome.error() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, outcome.error());
+        }
+        State to = outcome.target();
+        booking.setStatus(to.status());
+        booking.setAdminStatus(to.adminStatus());
+        booking.setDeliveryStatus(to.deliveryStatus());
+
+        // Early, friendlier answer when the booking would take a unit that is not there;
+        // the ledger's conditional reserve below is what actually guarantees it
+        if (BookingIntervalIndex.isIndexable(booking) && !(booking.isCounted() && booking.isCountedActive())) {
+            int quantity = booking.getTractor().getQuantity() != null ? booking.getTractor().getQuantity() : 1;
+            if (quantity <= 0 || capacityLedger.unitsInUse(booking.getTractor().getId(), booking.getStartAt(), booking.getEndAt(), quantity, booking.getId()) >= quantity) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Cannot approve: All %d tractors are already booked for this time period", quantity));
+            }
+        }
+
+        if (compareAndSet(booking.getId(), from, to, transition, changes) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "Booking was updated by another request. Reload it and try again.");
+        }
+        // The bulk UPDATE bypasses entity listeners, CatalogInvalidationListener included
+        tractorCatalogCache.invalidate();
+        settlePayments(booking, transition, to);
+        bookingWriteService.recordWrite(booking);
+        return booking;
+    }
+
+    private int compareAndSet(Long bookingId, State from, State to, Transition transition, Map<String, Object> changes) {
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder jpql = new StringBuilder("UPDATE Booking b SET b.status = :toStatus, b.adminStatus = :toAdminStatus, b.deliveryStatus = :toDeliveryStatus");
+        parameters.put("toStatus", to.status());
+        parameters.put("toAdminStatus", to.adminStatus());
+        parameters.put("toDeliveryStatus", to.deliveryStatus());
+        int index = 0;
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            jpql.append(", b.").append(change.getKey()).append(" = :v").append(index);
+            parameters.put("v" + index++, change.getValue());
+        }
+        jpql.append(" WHERE b.id = :id");
+        parameters.put("id", bookingId);
+        appendGuard(jpql, parameters, "status", from.status());
+        appendGuard(jpql, parameters, "adminStatus", from.adminStatus());
+        appendGuard(jpql, parameters, "deliveryStatus", from.deliveryStatus());
+        if (transition.once != null) {
+            jpql.append(" AND b.").append(transition.once).append(" IS NULL");
+        }
+
+        Query update = entityManager.createQuery(jpql.toString());
+        parameters.forEach(update::setParameter);
+        return update.executeUpdate();
+    }
+
+    private static void appendGuard(StringBuilder jpql, Map<String, Object> parameters, String attribute, String value) {
+        if (value == null) {
+            jpql.append(" AND b.").append(attribute).append(" IS NULL");
+        } else {
+            jpql.append(" AND b.").append(attribute).append(" = :").append(attribute);
+            parameters.put(attribute, value);
+        }
+    }
+
+    // Cash on delivery counts as received once the booking is paid, delivered or completed
+    private void settlePayments(Booking booking, Transition transition, State to) {
+        if (!to.cod()) {
+            return;
+        }
+        boolean pendingOnly = transition == Transition.MARK_PAID;
+        if (!pendingOnly && transition != Transition.MARK_DELIVERED && transition != Transition.COMPLETE) {
+            return;
+        }
+        int settled = pendingOnly
+            ? paymentRepository.settlePendingCashOnDelivery(booking.getId())
+            : paymentRepository.settleCashOnDelivery(booking.getId());
+        if (settled > 0) {
+            for (Payment payment : booking.getPayments()) {
+                if ("CASH_ON_DELIVERY".equals(payment.getMethod())
+                    && (pendingOnly ? "PENDING".equals(payment.getStatus()) : !"SUCCESS".equals(payment.getStatus()))) {
+                    payment.setStatus("SUCCESS");
+                }
+            }
+        }
+    }
+
+    private static Map<Transition, Map<State, Outcome>> buildTable() {
+        Map<Transition, Map<State, Outcome>> table = new EnumMap<>(Transition.class);
+        for (Transition transition : Transition.values()) {
+            Map<State, Outcome> outcomes = new HashMap<>();
+            for (String status : STATUSES) {
+                for (String adminStatus : ADMIN_STATUSES) {
+                    for (String deliveryStatus : DELIVERY_STATUSES) {
+                        for (boolean cod : new boolean[] { false, true }) {
+                            State from = new State(status, adminStatus, deliveryStatus, cod);
+                            outcomes.put(from, decide(transition, from));
+                        }
+                    }
+                }
+            }
+            table.put(transition, outcomes);
+        }
+        return table;
+    }
+
+    // The lifecycle rules the table is computed from
+    private static Outcome decide(Transition transition, State from) {
+        String status = from.status();
+        String deliveryStatus = from.deliveryStatus();
+        // Async intake owns these until a worker admits the booking (it then becomes PENDING)
+        if (BookingIntakeService.PENDING_INTAKE.equals(status)) {
+            return Outcome.reject("Booking is still being checked. Try again shortly.");
+        }
+        if (BookingIntakeService.INTAKE_REJECTED.equals(status)) {
+            return Outcome.reject("Booking was rejected at intake and cannot be changed");
+        }
+        switch (transition) {
+            case APPROVE:
+                // COD tracking starts at "Ordered" once the booking is approved
+                return Outcome.to(from.with(status, "APPROVED",
+                    from.cod() && deliveryStatus == null ? "ORDERED" : deliveryStatus));
+            case DENY:
+                return Outcome.to(from.with(status, "DENIED", deliveryStatus));
+            case MARK_PAID:
+                if ("CANCELLED".equals(status)) {
+                    return Outcome.reject("Cannot mark a cancelled booking as paid");
+                }
+                // COD may be paid after delivery; non-COD must be approved first
+                if (!from.cod() && !"APPROVED".equals(from.adminStatus())) {
+                    return Outcome.reject("Booking must be approved before marking as paid");
+                }
+                boolean keepStatus = from.cod() && ("DELIVERED".equals(status) || "COMPLETED".equals(status));
+                return Outcome.to(from.with(keepStatus ? status : "PAID", "APPROVED", deliveryStatus));
+            case MARK_DELIVERED:
+                if (from.cod() && !"APPROVED".equals(from.adminStatus())) {
+                    return Outcome.reject("COD booking must be approved before marking as delivered");
+                }
+                if (!from.cod() && !"PAID".equals(status) && !"DELIVERED".equals(status)) {
+                    return Outcome.reject("Booking must be paid before marking as delivered");
+                }
+                return Outcome.to(from.with("DELIVERED", from.adminStatus(), "DELIVERED"));
+            case COMPLETE:
+                if (!"RETURNED".equals(deliveryStatus)) {
+                    return Outcome.reject("Cannot complete booking. Tractor must be returned first.");
+                }
+                if ("COMPLETED".equals(status)) {
+                    return Outcome.reject("Booking is already completed");
+                }
+                if ("CANCELLED".equals(status)) {
+                    return Outcome.reject("Cannot complete a cancelled booking");
+                }
+                return Outcome.to(from.with("COMPLETED", from.adminStatus(), deliveryStatus));
+            case START_USAGE:
+                if (!"DELIVERED".equals(status)) {
+                    return Outcome.reject("Tractor must be delivered before starting usage");
+                }
+                if (!"DELIVERED".equals(deliveryStatus)) {
+                    return Outcome.reject("Tractor must be delivered to your location before you can start using it");
+                }
+                return Outcome.to(from);
+            case STOP_USAGE:
+                return Outcome.to(from);
+            default:
+                return decideDelivery(transition.name().substring("DELIVERY_".length()), from);
+        }
+    }
+
+    // Per-booking delivery tracking: ORDERED -> DELIVERING -> DELIVERED -> RETURNED
+    private static Outcome decideDelivery(String next, State from) {
+        String current = from.deliveryStatus();
+        if ("RETURNED".equals(current) && !"RETURNED".equals(next)) {
+            return Outcome.reject("Cannot change status. Tractor has already been returned for this booking.");
+        }
+        if (current != null && !current.isEmpty() && !next.equals(nextDeliveryStatus(current))) {
+            return Outcome.reject(String.format("Invalid status transition. Current status: %s. Valid next status: %s",
+                current, "RETURNED".equals(current) ? "N/A (already returned)" : nextDeliveryStatus(current)));
+        }
+        String status = from.status();
+        // For COD the booking can be delivered before it is paid; otherwise it must be paid first
+        if ("DELIVERED".equals(next) && !"DELIVERED".equals(status) && (from.cod() || "PAID".equals(status))) {
+            status = "DELIVERED";
+        }
+        return Outcome.to(from.with(status, from.adminStatus(), next));
+    }
+
+    private static String nextDeliveryStatus(String current) {
+        switch (current) {
+            case "ORDERED": return "DELIVERING";
+            case "DELIVERING": return "DELIVERED";
+            case "DELIVERED": return "RETURNED";
+            case "RETURNED": return null;
+            default: return "ORDERED";
+        }
+    }
+}
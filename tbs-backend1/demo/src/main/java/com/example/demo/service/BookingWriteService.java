@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Payment;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.PaymentRepository;
+
+/**
+ * Single write path for booking state changes, so the tractor_stats counters, the
+ * tractor_capacity ledger and the derived in-memory structures stay in step with the
+ * bookings table.
+ */
+@Service
+public class BookingWriteService {
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TractorStatsService tractorStatsService;
+    private final CapacityLedger capacityLedger;
+    private final PaymentRepository paymentRepository;
+
+    public BookingWriteService(BookingRepository bookingRepository, BookingIntervalIndex bookingIntervalIndex, TractorStatsService tractorStatsService, CapacityLedger capacityLedger, PaymentRepository paymentRepository) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.tractorStatsService = tractorStatsService;
+        this.capacityLedger = capacityLedger;
+        this.paymentRepository = paymentRepository;
+    }
+
+    @Transactional
+    public Booking save(Booking booking) {
+        Booking saved = bookingRepository.save(booking);
+        recordWrite(saved);
+        return saved;
+    }
+
+    /**
+     * Bring the derived tables in line with a booking row that was already written, e.g. by
+     * a conditional UPDATE in BookingTransitionService
+     */
+    @Transactional
+    public void recordWrite(Booking booking) {
+        capacityLedger.recordBookingWrite(booking);
+        tractorStatsService.recordBookingWrite(booking);
+        markCounted(booking);
+        afterCommit(() -> bookingIntervalIndex.sync(booking));
+    }
+
+    /**
+     * Record the booking's current state as the one reflected in tractor_stats and
+     * tractor_capacity. Also applied on load by BookingCountedStateListener.
+     */
+    public static void markCounted(Booking booking) {
+        Long tractorId = booking.getTractor() != null ? booking.getTractor().getId() : null;
+        booking.markCounted(tractorId, booking.getStartAt(), booking.getEndAt(),
+            TractorStatsService.isTotal(booking), TractorStatsService.isActive(booking), TractorStatsService.isCompleted(booking));
+    }
+
+    /**
+     * Save the booking together with its changed payments in one transaction, so the
+     * payment updates are flushed as a single JDBC batch
+     */
+    @Transactional
+    public Booking save(Booking booking, Collection<Payment> payments) {
+        paymentRepository.saveAll(payments);
+        return save(booking);
+    }
+
+    /**
+     * Save several new bookings in one transaction. All rows are persisted before the ledger
+     * and stats are touched, so the inserts go out as one JDBC batch on the first flush.
+     */
+    @Transactional
+    public List<Booking> saveAll(List<Booking> bookings) {
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        for (Booking booking : saved) {
+            recordWrite(booking);
+        }
+        return saved;
+    }
+
+    // Run now when no transaction is open, otherwise only once the surrounding transaction commits
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
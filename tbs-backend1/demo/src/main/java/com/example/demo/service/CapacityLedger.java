@@ -0,0 +1,257 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.model.Booking;
+import com.example.demo.repository.BookingIntervalView;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorCapacityRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Ledger of units reserved per tractor per time bucket (tractor_capacity).
+ *
+ * A booking counts once in every bucket its [startAt, endAt) touches while it occupies a
+ * tractor (see BookingIntervalIndex.isIndexable). Reservations are a single conditional
+ * UPDATE that only succeeds on buckets below the tractor's quantity, so two concurrent
+ * approvals can never both take the last unit.
+ *
+ * A bucket count is an upper bound on the units in use: a booking ending at 10:30 and one
+ * starting at 10:30 both count in the 10:00 bucket without overlapping. Buckets that are
+ * already at quantity are therefore locked and checked against the half-open intervals of
+ * the bookings themselves before a reservation is refused.
+ */
+@Service
+public class CapacityLedger {
+    private static final Logger logger = LoggerFactory.getLogger(CapacityLedger.class);
+    private static final int INSERT_CHUNK = 500;
+
+    private final TractorCapacityRepository tractorCapacityRepository;
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+    private final long bucketMinutes;
+
+    public CapacityLedger(TractorCapacityRepository tractorCapacityRepository, BookingRepository bookingRepository,
+                          EntityManager entityManager, @Value("${app.capacity.bucket-minutes:60}") long bucketMinutes) {
+        if (bucketMinutes <= 0 || 1440 % bucketMinutes != 0) {
+            throw new IllegalArgumentException("app.capacity.bucket-minutes must divide a day");
+        }
+        this.tractorCapacityRepository = tractorCapacityRepository;
+        this.bookingRepository = bookingRepository;
+        this.entityManager = entityManager;
+        this.bucketMinutes = bucketMinutes;
+    }
+
+    /**
+     * Highest bucket count in [startAt, endAt), one indexed range read. An upper bound on
+     * the units in use; see unitsInUse.
+     */
+    public int peakReserved(Long tractorId, LocalDateTime startAt, LocalDateTime endAt) {
+        return tractorCapacityRepository.peakReserved(tractorId, bucketStart(startAt), bucketEnd(endAt));
+    }
+
+    /**
+     * Most units in use at any instant of [startAt, endAt). Answered from the buckets while
+     * they show a free unit; once they reach quantity, recounted from the overlapping
+     * bookings so neighbours that merely share an edge bucket are not counted. The booking
+     * being written, if already stored, is left out of the recount.
+     */
+    public int unitsInUse(Long tractorId, LocalDateTime startAt, LocalDateTime endAt, int quantity, Long excludeBookingId) {
+        int peak = peakReserved(tractorId, startAt, endAt);
+        if (peak < quantity) {
+            return peak;
+        }
+        return peakOverlap(bookingRepository.findIndexableIntervalsOverlapping(tractorId, startAt, endAt),
+            startAt, endAt, excludeBookingId);
+    }
+
+    /**
+     * Move the booking's reservation from what the ledger last saw of it to its current
+     * state. Call in the same transaction as the booking save; throws 409 when a bucket
+     * has no free unit, which rolls the whole write back.
+     */
+    @Transactional
+    public void recordBookingWrite(Booking booking) {
+        boolean held = booking.isCounted() && booking.isCountedActive();
+        boolean holds = BookingIntervalIndex.isIndexable(booking);
+        Long tractorId = holds ? booking.getTractor().getId() : null;
+        boolean moved = held && holds && (!Objects.equals(booking.getCountedTractorId(), tractorId)
+            || !Objects.equals(booking.getCountedStartAt(), booking.getStartAt())
+            || !Objects.equals(booking.getCountedEndAt(), booking.getEndAt()));
+
+        if (held && (!holds || moved)) {
+            release(booking.getCountedTractorId(), booking.getCountedStartAt(), booking.getCountedEndAt());
+        }
+        if (holds && (!held || moved)) {
+            Integer quantity = booking.getTractor().getQuantity();
+            reserve(booking.getId(), tractorId, booking.getStartAt(), booking.getEndAt(), quantity != null ? quantity : 1);
+        }
+    }
+
+    private void reserve(Long bookingId, Long tractorId, LocalDateTime startAt, LocalDateTime endAt, int quantity) {
+        LocalDateTime from = bucketStart(startAt);
+        LocalDateTime to = bucketEnd(endAt);
+        List<LocalDateTime> buckets = buckets(from, to);
+        insertBuckets(tractorId, buckets, null);
+        // Locked first, so no other write can move these buckets while the bookings are recounted
+        List<LocalDateTime> full = tractorCapacityRepository.lockFullBuckets(tractorId, from, to, quantity);
+        int taken = tractorCapacityRepository.reserve(tractorId, from, to, quantity);
+        if (taken < buckets.size() - full.size()) {
+            throw fullyBooked(quantity);
+        }
+        if (!full.isEmpty()) {
+            // Every unit-holding booking in the window has committed its bucket counts by now,
+            // and the locking read sees them
+            List<BookingIntervalView> overlapping = bookingRepository.lockIndexableIntervalsOverlapping(tractorId, startAt, endAt);
+            if (peakOverlap(overlapping, startAt, endAt, bookingId) >= quantity) {
+                throw fullyBooked(quantity);
+            }
+            for (LocalDateTime bucket : full) {
+                tractorCapacityRepository.add(tractorId, bucket);
+            }
+        }
+    }
+
+    private static ResponseStatusException fullyBooked(int quantity) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+            String.format("All %d units of this tractor are already booked for part of this time period", quantity));
+    }
+
+    /**
+     * Most of the given half-open intervals in use at once within [from, to). At equal
+     * times an end frees the unit before a start takes it.
+     */
+    static int peakOverlap(List<BookingIntervalView> intervals, LocalDateTime from, LocalDateTime to, Long excludeBookingId) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        List<LocalDateTime> ends = new ArrayList<>();
+        for (BookingIntervalView view : intervals) {
+            if (Objects.equals(view.getBookingId(), excludeBookingId)
+                || !view.getStartAt().isBefore(to) || !view.getEndAt().isAfter(from)) {
+                continue;
+            }
+            starts.add(view.getStartAt());
+            ends.add(view.getEndAt());
+        }
+        starts.sort(null);
+        ends.sort(null);
+        int active = 0;
+        int peak = 0;
+        int nextEnd = 0;
+        for (LocalDateTime start : starts) {
+            while (nextEnd < ends.size() && !ends.get(nextEnd).isAfter(start)) {
+                active--;
+                nextEnd++;
+            }
+            peak = Math.max(peak, ++active);
+        }
+        return peak;
+    }
+
+    private void release(Long tractorId, LocalDateTime startAt, LocalDateTime endAt) {
+        if (tractorId == null || startAt == null || endAt == null) {
+            return;
+        }
+        tractorCapacityRepository.release(tractorId, bucketStart(startAt), bucketEnd(endAt));
+    }
+
+    /**
+     * Seed an empty ledger from the bookings that currently hold a unit, e.g. on first
+     * deployment. A ledger that already has rows is left alone: other instances may be
+     * reserving against it, and wiping it would drop their reservations. Buckets that have
+     * already passed are not seeded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        if (tractorCapacityRepository.count() > 0) {
+            logger.info("Capacity ledger already populated, skipping rebuild");
+            return;
+        }
+        LocalDateTime horizon = bucketStart(LocalDateTime.now());
+        Map<Long, Map<LocalDateTime, Integer>> reserved = new HashMap<>();
+        for (BookingIntervalView view : bookingRepository.findIndexableIntervals()) {
+            LocalDateTime from = bucketStart(view.getStartAt());
+            if (from.isBefore(horizon)) {
+                from = horizon;
+            }
+            Map<LocalDateTime, Integer> byBucket = reserved.computeIfAbsent(view.getTractorId(), id -> new HashMap<>());
+            for (LocalDateTime bucket : buckets(from, bucketEnd(view.getEndAt()))) {
+                byBucket.merge(bucket, 1, Integer::sum);
+            }
+        }
+
+        int rows = 0;
+        for (Map.Entry<Long, Map<LocalDateTime, Integer>> entry : reserved.entrySet()) {
+            insertBuckets(entry.getKey(), new ArrayList<>(entry.getValue().keySet()), entry.getValue());
+            rows += entry.getValue().size();
+        }
+        logger.info("Capacity ledger seeded with {} buckets across {} tractors", rows, reserved.size());
+    }
+
+    // Buckets that ended more than a day ago are never read again
+    @Scheduled(cron = "0 15 * * * *")
+    @Transactional
+    public void purgePastBuckets() {
+        tractorCapacityRepository.deleteBucketsBefore(bucketStart(LocalDateTime.now().minusDays(1)));
+    }
+
+    /**
+     * Create missing bucket rows. With counts, rows are written with those reservations;
+     * without, missing rows start empty and existing ones are left alone.
+     */
+    private void insertBuckets(Long tractorId, List<LocalDateTime> buckets, Map<LocalDateTime, Integer> counts) {
+        for (int offset = 0; offset < buckets.size(); offset += INSERT_CHUNK) {
+            List<LocalDateTime> chunk = buckets.subList(offset, Math.min(buckets.size(), offset + INSERT_CHUNK));
+            StringBuilder sql = new StringBuilder("INSERT IGNORE INTO tractor_capacity (tractor_id, bucket_start, reserved) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(?, ?, ?)");
+            }
+            Query insert = entityManager.createNativeQuery(sql.toString());
+            int position = 1;
+            for (LocalDateTime bucket : chunk) {
+                insert.setParameter(position++, tractorId);
+                insert.setParameter(position++, bucket);
+                insert.setParameter(position++, counts != null ? counts.get(bucket) : 0);
+            }
+            insert.executeUpdate();
+        }
+    }
+
+    private List<LocalDateTime> buckets(LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> buckets = new ArrayList<>();
+        for (LocalDateTime bucket = from; bucket.isBefore(to); bucket = bucket.plusMinutes(bucketMinutes)) {
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    private LocalDateTime bucketStart(LocalDateTime time) {
+        long minutes = time.toEpochSecond(ZoneOffset.UTC) / 60;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(minutes, bucketMinutes) * bucketMinutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    // Exclusive end: the start of the first bucket the interval does not touch
+    private LocalDateTime bucketEnd(LocalDateTime time) {
+        LocalDateTime start = bucketStart(time);
+        return start.equals(time) ? start : start.plusMinutes(bucketMinutes);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener on Tractor and Booking: any insert, update or delete drops the cached
+ * tractor catalog, whichever code path performed the write.
+ */
+@Component
+public class CatalogInvalidationListener {
+    // Resolved lazily: entity listeners are created while the EntityManagerFactory is still being built
+    private final ObjectProvider<TractorCatalogCache> catalogCache;
+
+    public CatalogInvalidationListener(ObjectProvider<TractorCatalogCache> catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        TractorCatalogCache cache = catalogCache.getIfAvailable();
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Feedback;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.FeedbackRepository;
+import com.example.demo.repository.TractorRepository;
+
+@Service
+public class FeedbackService {
+    private final FeedbackRepository feedbackRepository;
+    private final TractorRepository tractorRepository;
+    private final TractorStatsService tractorStatsService;
+
+    public FeedbackService(FeedbackRepository feedbackRepository, TractorRepository tractorRepository, TractorStatsService tractorStatsService) {
+        this.feedbackRepository = feedbackRepository;
+        this.tractorRepository = tractorRepository;
+        this.tractorStatsService = tractorStatsService;
+    }
+
+    /**
+     * Store a rating, bump the tractor's rating counters and refresh its average, all in
+     * one transaction. Returns the new average.
+     */
+    @Transactional
+    public double submit(Tractor tractor, User user, int rating, String comment) {
+        Feedback f = new Feedback();
+        f.setTractor(tractor);
+        f.setUser(user);
+        f.setAuthorName(user.getName());
+        f.setRating(rating);
+        f.setComment(comment);
+        feedbackRepository.save(f);
+
+        tractorStatsService.recordRating(tractor.getId(), rating);
+        double avg = tractorStatsService.averageRating(tractor.getId());
+        tractor.setRating(avg);
+        tractorRepository.save(tractor);
+        return avg;
+    }
+}
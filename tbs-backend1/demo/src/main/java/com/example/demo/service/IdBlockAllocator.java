@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hands out entity ids (see PooledId) from blocks of BLOCK_SIZE reserved in the
+ * id_generators table (IdGeneratorRow).
+ *
+ * Blocks are reserved on a small pool of its own rather than on the application pool: a
+ * request that needs a new block already holds an application connection, and under load
+ * every one of those can be held by requests waiting for ids. Each reservation also moves
+ * the generator past the table's highest id, so rows written with AUTO_INCREMENT before
+ * the switch (or by hand) are never reused. The pool is closed with the context.
+ */
+@Component
+public class IdBlockAllocator {
+    public static final int BLOCK_SIZE = 50;
+    private static final String TABLE = "id_generators";
+
+    private final HikariDataSource dataSource;
+    private final Map<String, long[]> blocks = new HashMap<>();
+
+    public IdBlockAllocator(DataSourceProperties properties) {
+        this.dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.dataSource.setPoolName("id-blocks");
+        this.dataSource.setMaximumPoolSize(2);
+        this.dataSource.setMinimumIdle(1);
+    }
+
+    public synchronized long next(String table) {
+        long[] block = blocks.get(table);
+        if (block == null || block[0] >= block[1]) {
+            long start = reserveBlock(table);
+            block = new long[] { start, start + BLOCK_SIZE };
+            blocks.put(table, block);
+        }
+        return block[0]++;
+    }
+
+    // Reserve [start, start + BLOCK_SIZE) in a short transaction of its own and return start
+    private long reserveBlock(String table) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // Seed the row if this is the table's first block; a concurrent seed is a no-op, not a key violation
+                try (PreparedStatement seed = connection.prepareStatement("INSERT INTO " + TABLE
+                        + " (entity, next_val) VALUES (?, 1) ON DUPLICATE KEY UPDATE next_val = next_val")) {
+                    seed.setString(1, table);
+                    seed.executeUpdate();
+                }
+                long current;
+                try (PreparedStatement select = connection.prepareStatement("SELECT next_val FROM " + TABLE + " WHERE entity = ? FOR UPDATE")) {
+                    select.setString(1, table);
+                    try (ResultSet rs = select.executeQuery()) {
+                        rs.next();
+                        current = rs.getLong(1);
+                    }
+                }
+                // Read under the row lock, so every instance computes the floor one at a time
+                long floor;
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+                    rs.next();
+                    floor = rs.getLong(1);
+                }
+                long start = Math.max(current, floor);
+                try (PreparedStatement update = connection.prepareStatement("UPDATE " + TABLE + " SET next_val = ? WHERE entity = ?")) {
+                    update.setLong(1, start + BLOCK_SIZE);
+                    update.setString(2, table);
+                    update.executeUpdate();
+                }
+                connection.commit();
+                return start;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reserve an id block for " + table, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+}
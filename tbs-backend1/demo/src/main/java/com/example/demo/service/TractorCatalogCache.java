@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.dto.TractorView;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.util.HashUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Caches the public tractor catalog (approved tractors with derived availability).
+ *
+ * The cached list is dropped whenever a tractor or booking is written (see
+ * CatalogInvalidationListener) and when the earliest active booking ends, since that
+ * changes derived availability without any write.
+ */
+@Service
+public class TractorCatalogCache {
+    private final TractorService tractorService;
+    private final BookingRepository bookingRepository;
+
+    private final ObjectMapper objectMapper;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public TractorCatalogCache(TractorService tractorService, BookingRepository bookingRepository, ObjectMapper objectMapper) {
+        this.tractorService = tractorService;
+        this.bookingRepository = bookingRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null && current.isValid(version.get(), LocalDateTime.now())) {
+            hits.incrementAndGet();
+            return current;
+        }
+        return reload();
+    }
+
+    /**
+     * Drop the cached catalog now and again once the current transaction commits, so a
+     * reload racing with an uncommitted write cannot pin stale data.
+     */
+    public void invalidate() {
+        bump();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bump();
+                }
+            });
+        }
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getInvalidations() { return invalidations.get(); }
+    public long getVersion() { return version.get(); }
+
+    private void bump() {
+        version.incrementAndGet();
+        invalidations.incrementAndGet();
+    }
+
+    private synchronized Snapshot reload() {
+        // Another request may have reloaded while this one waited for the lock
+        long expectedVersion = version.get();
+        LocalDateTime now = LocalDateTime.now();
+        Snapshot current = snapshot;
+        if (current != null && current.isValid(expectedVersion, now)) {
+            hits.incrementAndGet();
+            return current;
+        }
+        misses.incrementAndGet();
+
+        // Only approved tractors are part of the public listing
+        List<TractorView> tractors = tractorService.getAll().stream()
+            .filter(t -> t.getApprovalStatus() == null || "APPROVED".equals(t.getApprovalStatus()))
+            .collect(Collectors.toList());
+
+        LocalDateTime validUntil = bookingRepository.findEarliestActiveEndAfter(now);
+        // Hash of the served JSON: the same catalog gets the same ETag after any reload and on every instance
+        String etag;
+        try {
+            etag = "\"" + HashUtil.sha256(objectMapper.writeValueAsString(tractors)).substring(0, 32) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize tractor catalog", e);
+        }
+        snapshot = new Snapshot(List.copyOf(tractors), etag, expectedVersion, validUntil);
+        return snapshot;
+    }
+
+    public static final class Snapshot {
+        private final List<TractorView> tractors;
+        private final String etag;
+        private final long version;
+        private final LocalDateTime validUntil;
+
+        Snapshot(List<TractorView> tractors, String etag, long version, LocalDateTime validUntil) {
+            this.tractors = tractors;
+            this.etag = etag;
+            this.version = version;
+            this.validUntil = validUntil;
+        }
+
+        boolean isValid(long currentVersion, LocalDateTime now) {
+            return version == currentVersion && (validUntil == null || now.isBefore(validUntil));
+        }
+
+        public List<TractorView> getTractors() { return tractors; }
+        public String getEtag() { return etag; }
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if ("*".equals(tag) || etag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.util.TrackingMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Server-side tractor search: filters, sorting and keyset pagination all run in the
+ * database, and only the columns needed for a catalog card are selected.
+ */
+@Service
+public class TractorSearchService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final double KM_PER_DEGREE = 111.32;
+    // Decimal places the squared-degree distance key is rounded to, so cursor comparisons are exact
+    private static final int DISTANCE_KEY_SCALE = 12;
+
+    private final EntityManager entityManager;
+    private final AvailabilityService availabilityService;
+
+    public TractorSearchService(EntityManager entityManager, AvailabilityService availabilityService) {
+        this.entityManager = entityManager;
+        this.availabilityService = availabilityService;
+    }
+
+    public enum SortBy { RATING, PRICE, DISTANCE }
+
+    public static class Criteria {
+        public String category;
+        public String fuelType;
+        public Integer minHorsePower;
+        public Integer maxHorsePower;
+        public Double minHourlyRate;
+        public Double maxHourlyRate;
+        public String approvalStatus = "APPROVED";
+        public Boolean available;
+        public SortBy sortBy = SortBy.RATING;
+        public boolean descending = true;
+        public Double latitude;
+        public Double longitude;
+        public Double radiusKm;
+        public String cursor;
+        public int size = DEFAULT_PAGE_SIZE;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> search(Criteria criteria) {
+        if (criteria.sortBy == SortBy.DISTANCE && (criteria.latitude == null || criteria.longitude == null)) {
+            throw new IllegalArgumentException("latitude and longitude are required when sorting by distance");
+        }
+        int size = Math.max(1, Math.min(criteria.size, MAX_PAGE_SIZE));
+        boolean descending = criteria.sortBy != SortBy.DISTANCE && criteria.descending;
+        LocalDateTime now = LocalDateTime.now();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Tractor> t = query.from(Tractor.class);
+        Expression<Double> sortKey = sortKey(cb, t, criteria);
+
+        List<Predicate> predicates = new ArrayList<>();
+        // Equality on the NOT NULL column, so idx_tractor_approval_rate/_rating serve the sort below
+        if (criteria.approvalStatus != null) {
+            predicates.add(cb.equal(t.get("approvalStatus"), criteria.approvalStatus));
+        }
+        if (criteria.category != null) {
+            predicates.add(cb.equal(t.get("category"), criteria.category));
+        }
+        if (criteria.fuelType != null) {
+            predicates.add(cb.equal(t.get("fuelType"), criteria.fuelType));
+        }
+        if (criteria.minHorsePower != null) {
+            predicates.add(cb.greaterThanOrEqualTo(t.get("horsePower"), criteria.minHorsePower));
+        }
+        if (criteria.maxHorsePower != null) {
+            predicates.add(cb.lessThanOrEqualTo(t.get("horsePower"), criteria.maxHorsePower));
+        }
+        if (criteria.minHourlyRate != null) {
+            predicates.add(cb.greaterThanOrEqualTo(t.get("hourlyRate"), criteria.minHourlyRate));
+        }
+        if (criteria.maxHourlyRate != null) {
+            predicates.add(cb.lessThanOrEqualTo(t.get("hourlyRate"), criteria.maxHourlyRate));
+        }
+        if (criteria.available != null) {
+            Expression<Long> activeBookings = activeBookingCount(cb, query, t, now);
+            Expression<Integer> quantity = cb.coalesce(t.get("quantity"), 1);
+            predicates.add(criteria.available ? cb.lt(activeBookings, quantity) : cb.ge(activeBookings, quantity));
+        }
+        if (criteria.sortBy == SortBy.DISTANCE) {
+            predicates.add(cb.isNotNull(t.get("latitude")));
+            predicates.add(cb.isNotNull(t.get("longitude")));
+            if (criteria.radiusKm != null) {
+                // Bounding box first so the (latitude, longitude) index can narrow the scan
+                double latDelta = criteria.radiusKm / KM_PER_DEGREE;
+                double lngDelta = latDelta / Math.max(0.01, Math.cos(Math.toRadians(criteria.latitude)));
+                predicates.add(cb.between(t.get("latitude"), criteria.latitude - latDelta, criteria.latitude + latDelta));
+                predicates.add(cb.between(t.get("longitude"), criteria.longitude - lngDelta, criteria.longitude + lngDelta));
+                predicates.add(cb.le(sortKey, latDelta * latDelta));
+            }
+        }
+        if (criteria.cursor != null && !criteria.cursor.isBlank()) {
+            Cursor after = Cursor.decode(criteria.cursor);
+            Predicate beyondKey = descending ? cb.lt(sortKey, after.key) : cb.gt(sortKey, after.key);
+            Predicate beyondId = descending ? cb.lt(t.get("id"), after.id) : cb.gt(t.get("id"), after.id);
+            predicates.add(cb.or(beyondKey, cb.and(cb.equal(sortKey, after.key), beyondId)));
+        }
+
+        List<Selection<?>> columns = new ArrayList<>(List.of(
+            t.get("id").alias("id"),
+            t.get("name").alias("name"),
+            t.get("model").alias("model"),
+            t.get("category").alias("category"),
+            t.get("fuelType").alias("fuelType"),
+            t.get("horsePower").alias("horsePower"),
+            t.get("hourlyRate").alias("hourlyRate"),
+            t.get("rating").alias("rating"),
+            t.get("location").alias("location"),
+            t.get("latitude").alias("latitude"),
+            t.get("longitude").alias("longitude"),
+            t.get("imageUrl").alias("imageUrl"),
+            t.get("quantity").alias("quantity")));
+        // Price and rating sort on a column selected above; only the distance key is computed
+        if (criteria.sortBy == SortBy.DISTANCE) {
+            columns.add(sortKey.alias("sortKey"));
+        }
+        query.multiselect(columns);
+        query.where(predicates.toArray(new Predicate[0]));
+        // The id tie-break runs the same way as the key, so one index scan direction covers both
+        query.orderBy(descending ? cb.desc(sortKey) : cb.asc(sortKey), descending ? cb.desc(t.get("id")) : cb.asc(t.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        List<Long> ids = rows.stream().map(r -> r.get("id", Long.class)).collect(Collectors.toList());
+        Map<Long, AvailabilityService.Availability> availability = availabilityService.snapshot(ids, now);
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Tuple row : rows) {
+            items.add(toItem(row, availability.getOrDefault(row.get("id", Long.class), AvailabilityService.Availability.NONE), criteria));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Tuple last = rows.get(rows.size() - 1);
+            nextCursor = new Cursor(last.get(sortAlias(criteria.sortBy), Double.class), last.get("id", Long.class)).encode();
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("size", items.size());
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", nextCursor);
+        return page;
+    }
+
+    private static String sortAlias(SortBy sortBy) {
+        switch (sortBy) {
+            case PRICE: return "hourlyRate";
+            case DISTANCE: return "sortKey";
+            case RATING:
+            default: return "rating";
+        }
+    }
+
+    private Expression<Double> sortKey(CriteriaBuilder cb, Root<Tractor> t, Criteria criteria) {
+        switch (criteria.sortBy) {
+            case PRICE:
+                return t.get("hourlyRate");
+            case DISTANCE:
+                // Squared equirectangular distance in degrees: cheap, monotonic in true distance at these scales
+                double lngScale = Math.cos(Math.toRadians(criteria.latitude));
+                Expression<Double> dLat = cb.diff(t.<Double>get("latitude"), criteria.latitude);
+                Expression<Double> dLng = cb.prod(cb.diff(t.<Double>get("longitude"), criteria.longitude), lngScale);
+                // Rounded so the key read back into the cursor compares equal to the one the database recomputes
+                return cb.round(cb.sum(cb.prod(dLat, dLat), cb.prod(dLng, dLng)), DISTANCE_KEY_SCALE);
+            case RATING:
+            default:
+                return t.get("rating");
+        }
+    }
+
+    // Units held by bookings that have not ended yet, the same rule as BookingIntervalIndex.countActive
+    // (the tractor_stats counter keeps counting a booking past its endAt until it is returned)
+    private Expression<Long> activeBookingCount(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Tractor> t, LocalDateTime now) {
+        Subquery<Long> active = query.subquery(Long.class);
+        Root<Booking> b = active.from(Booking.class);
+        active.select(cb.count(b)).where(
+            cb.equal(b.get("tractor"), t),
+            cb.or(cb.isNull(b.get("adminStatus")), cb.equal(b.get("adminStatus"), "APPROVED")),
+            b.get("status").in("PENDING", "PAID", "DELIVERED", "CONFIRMED"),
+            cb.or(cb.isNull(b.get("deliveryStatus")), cb.notEqual(b.get("deliveryStatus"), "RETURNED")),
+            cb.greaterThan(b.<LocalDateTime>get("endAt"), now));
+        return active;
+    }
+
+    private Map<String, Object> toItem(Tuple row, AvailabilityService.Availability availability, Criteria criteria) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", row.get("id"));
+        item.put("name", row.get("name"));
+        item.put("model", row.get("model"));
+        item.put("category", row.get("category"));
+        item.put("fuelType", row.get("fuelType"));
+        item.put("horsePower", row.get("horsePower"));
+        item.put("hourlyRate", row.get("hourlyRate"));
+        item.put("rating", row.get("rating"));
+        item.put("location", row.get("location"));
+        item.put("latitude", row.get("latitude"));
+        item.put("longitude", row.get("longitude"));
+        item.put("imageUrl", row.get("imageUrl"));
+
+        Integer quantity = row.get("quantity", Integer.class);
+        int units = quantity != null ? quantity : 1;
+        long freeUnits = Math.max(0, units - availability.getActiveBookings());
+        item.put("quantity", units);
+        item.put("availableUnits", freeUnits);
+        item.put("available", freeUnits > 0);
+        item.put("totalBookings", availability.getTotalBookings());
+
+        if (criteria.sortBy == SortBy.DISTANCE) {
+            item.put("distanceKm", TrackingMapper.computeDistanceKm(
+                criteria.latitude, criteria.longitude,
+                row.get("latitude", Double.class), row.get("longitude", Double.class)));
+        }
+        return item;
+    }
+
+    private static final class Cursor {
+        final double key;
+        final long id;
+
+        Cursor(double key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = Double.toString(key) + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new Cursor(Double.parseDouble(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
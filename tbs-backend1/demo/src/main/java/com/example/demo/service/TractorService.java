@@ -1,148 +1,95 @@
 package com.example.demo.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.dto.TractorView;
 import com.example.demo.model.Tractor;
-import com.example.demo.model.Booking;
-import com.example.demo.repository.TractorRepository;
 import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
 
 @Service
 public class TractorService {
+    private static final Logger logger = LoggerFactory.getLogger(TractorService.class);
+
     private final TractorRepository tractorRepository;
     private final BookingRepository bookingRepository;
+    private final AvailabilityService availabilityService;
 
-    public TractorService(TractorRepository tractorRepository, BookingRepository bookingRepository) {
+    public TractorService(TractorRepository tractorRepository, BookingRepository bookingRepository, AvailabilityService availabilityService) {
         this.tractorRepository = tractorRepository;
         this.bookingRepository = bookingRepository;
+        this.availabilityService = availabilityService;
+    }
+
+    /**
+     * Fill the search columns of tractors stored before they became NOT NULL, so
+     * TractorSearchService can filter and sort on the raw columns through their indexes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillSearchColumns() {
+        int updated = tractorRepository.backfillSearchColumns();
+        if (updated > 0) {
+            logger.info("Backfilled approval status, hourly rate and rating of {} tractors", updated);
+        }
     }
 
-    public List<Tractor> getAll() {
+    // Read-only: derived fields go into the views, so loaded tractors are never dirty-checked or flushed
+    @Transactional(readOnly = true)
+    public List<TractorView> getAll() {
         List<Tractor> tractors = tractorRepository.findAll();
         LocalDateTime now = LocalDateTime.now();
-        
-        // Update status based on active bookings and quantity
+        Map<Long, AvailabilityService.Availability> availability = availabilityService.snapshot(
+            tractors.stream().map(Tractor::getId).collect(java.util.stream.Collectors.toList()), now);
+
+        List<TractorView> views = new ArrayList<>(tractors.size());
         for (Tractor tractor : tractors) {
-            Integer quantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
-            
-            // Count total bookings for this tractor (all time)
-            long totalBookingsCount = bookingRepository.countByTractorId(tractor.getId());
-            tractor.setTotalBookings((int) totalBookingsCount);
-            
-            // Count active approved bookings
-            long activeBookingsCount = bookingRepository.countActiveBookings(tractor, now);
-            
-            // Find all active bookings to get next available time
-            List<Booking> activeBookings = bookingRepository.findAll().stream()
-                .filter(b -> b.getTractor().getId().equals(tractor.getId()))
-                .filter(b -> {
-                    LocalDateTime endAt = b.getEndAt();
-                    String adminStatus = b.getAdminStatus();
-                    // Treat null adminStatus as APPROVED for backward compatibility
-                    boolean isApproved = adminStatus == null || adminStatus.equals("APPROVED");
-                    return isApproved
-                        && (b.getStatus().equals("PENDING") || b.getStatus().equals("PAID") || b.getStatus().equals("DELIVERED"))
-                        && endAt.isAfter(now);
-                })
-                .collect(Collectors.toList());
-            
-            // Only set unavailable when ALL tractors are booked (quantity reaches 0)
-            if (activeBookingsCount >= quantity && quantity > 0) {
-                // All tractors are booked
-                LocalDateTime latestEnd = activeBookings.stream()
-                    .map(Booking::getEndAt)
-                    .max(LocalDateTime::compareTo)
-                    .orElse(now);
-                
-                tractor.setStatus("Booked");
-                tractor.setNextAvailableAt(latestEnd.toString());
-                tractor.setAvailable(false);
-            } else if (activeBookingsCount > 0) {
-                // Some tractors are available
-                LocalDateTime latestEnd = activeBookings.stream()
-                    .map(Booking::getEndAt)
-                    .max(LocalDateTime::compareTo)
-                    .orElse(now);
-                
-                long availableCount = quantity - activeBookingsCount;
-                tractor.setStatus(String.format("Available (%d/%d)", availableCount, quantity));
-                tractor.setNextAvailableAt(latestEnd.toString());
-                tractor.setAvailable(true);
-            } else {
-                // All tractors are available
-                tractor.setStatus("Available");
-                tractor.setAvailable(true);
-                tractor.setNextAvailableAt(null);
-            }
+            views.add(availabilityService.view(tractor,
+                availability.getOrDefault(tractor.getId(), AvailabilityService.Availability.NONE), now));
         }
-        
-        return tractors;
+        return views;
     }
 
-    public Optional<Tractor> getById(Long id) {
-        Optional<Tractor> tractorOpt = tractorRepository.findById(id);
-        if (tractorOpt.isPresent()) {
-            Tractor tractor = tractorOpt.get();
-            LocalDateTime now = LocalDateTime.now();
-            Integer quantity = tractor.getQuantity() != null ? tractor.getQuantity() : 1;
-            
-            // Count total bookings for this tractor (all time)
-            long totalBookingsCount = bookingRepository.countByTractorId(tractor.getId());
-            tractor.setTotalBookings((int) totalBookingsCount);
-            
-            // Count active approved bookings
-            long activeBookingsCount = bookingRepository.countActiveBookings(tractor, now);
-            
-            // Find all active bookings to get next available time
-            List<Booking> activeBookings = bookingRepository.findAll().stream()
-                .filter(b -> b.getTractor().getId().equals(tractor.getId()))
-                .filter(b -> {
-                    LocalDateTime endAt = b.getEndAt();
-                    String adminStatus = b.getAdminStatus();
-                    // Treat null adminStatus as APPROVED for backward compatibility
-                    boolean isApproved = adminStatus == null || adminStatus.equals("APPROVED");
-                    return isApproved
-                        && (b.getStatus().equals("PENDING") || b.getStatus().equals("PAID") || b.getStatus().equals("DELIVERED"))
-                        && endAt.isAfter(now);
-                })
-                .collect(Collectors.toList());
-            
-            // Only set unavailable when ALL tractors are booked (quantity reaches 0)
-            if (activeBookingsCount >= quantity && quantity > 0) {
-                // All tractors are booked
-                LocalDateTime latestEnd = activeBookings.stream()
-                    .map(Booking::getEndAt)
-                    .max(LocalDateTime::compareTo)
-                    .orElse(now);
-                
-                tractor.setStatus("Booked");
-                tractor.setNextAvailableAt(latestEnd.toString());
-                tractor.setAvailable(false);
-            } else if (activeBookingsCount > 0) {
-                // Some tractors are available
-                LocalDateTime latestEnd = activeBookings.stream()
-                    .map(Booking::getEndAt)
-                    .max(LocalDateTime::compareTo)
-                    .orElse(now);
-                
-                long availableCount = quantity - activeBookingsCount;
-                tractor.setStatus(String.format("Available (%d/%d)", availableCount, quantity));
-                tractor.setNextAvailableAt(latestEnd.toString());
-                tractor.setAvailable(true);
-            } else {
-                // All tractors are available
-                tractor.setStatus("Available");
-                tractor.setAvailable(true);
-                tractor.setNextAvailableAt(null);
+    @Transactional(readOnly = true)
+    public Optional<TractorView> getById(Long id) {
+        return tractorRepository.findById(id).map(this::view);
+    }
+
+    /**
+     * Views in the order of the given ids; unknown ids are skipped
+     */
+    @Transactional(readOnly = true)
+    public List<TractorView> getByIds(List<Long> ids) {
+        Map<Long, Tractor> byId = new java.util.HashMap<>();
+        tractorRepository.findAllById(ids).forEach(t -> byId.put(t.getId(), t));
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, AvailabilityService.Availability> availability = availabilityService.snapshot(byId.keySet(), now);
+
+        List<TractorView> ordered = new ArrayList<>();
+        for (Long id : ids) {
+            Tractor tractor = byId.get(id);
+            if (tractor != null) {
+                ordered.add(availabilityService.view(tractor,
+                    availability.getOrDefault(id, AvailabilityService.Availability.NONE), now));
             }
         }
-        return tractorOpt;
+        return ordered;
+    }
+
+    public TractorView view(Tractor tractor) {
+        LocalDateTime now = LocalDateTime.now();
+        return availabilityService.view(tractor, availabilityService.forTractor(tractor.getId(), now), now);
     }
 
     @Transactional
@@ -193,9 +140,9 @@ public class TractorService {
     public boolean delete(Long id) {
         if (!tractorRepository.existsById(id)) return false;
         
-        // Check if tractor has any bookings (not just active ones)
-        long totalBookings = bookingRepository.countByTractorId(id);
-        if (totalBookings > 0) {
+        // Check if tractor has any bookings (not just active ones), against the bookings table
+        // itself: the tractor_stats counters can lag until the reconciler runs
+        if (bookingRepository.existsByTractorId(id)) {
             // Don't allow deletion if there are any bookings (to preserve data integrity)
             throw new IllegalStateException("Cannot delete tractor with existing bookings. Please cancel or complete all bookings first.");
         }
@@ -0,0 +1,294 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.Tractor;
+import com.example.demo.repository.TractorPositionView;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.util.TrackingMapper;
+
+/**
+ * Uniform lat/lng grid over the positions of publicly listed tractors.
+ *
+ * Radius and nearest-neighbour queries only visit the cells that can contain a match and
+ * run the haversine distance on those candidates, instead of on every tractor. Positions
+ * follow tractor writes (live location updates, delivery and return) through
+ * TractorSpatialIndexListener.
+ */
+@Component
+public class TractorSpatialIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TractorSpatialIndex.class);
+
+    static final double CELL_DEGREES = 0.1; // ~11 km north-south
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double CELL_KM = CELL_DEGREES * KM_PER_DEGREE;
+    private static final int LAT_CELLS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int LNG_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    public static final double MAX_RADIUS_KM = 2000;
+
+    private final TractorRepository tractorRepository;
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    private final LongAdder distanceChecks = new LongAdder();
+
+    public TractorSpatialIndex(TractorRepository tractorRepository) {
+        this.tractorRepository = tractorRepository;
+    }
+
+    /**
+     * Whether a tractor appears in nearby searches. Must stay in line with
+     * TractorRepository.findIndexablePositions.
+     */
+    public static boolean isIndexable(Tractor tractor) {
+        return tractor != null && tractor.getId() != null
+            && tractor.getLatitude() != null && tractor.getLongitude() != null
+            && (tractor.getApprovalStatus() == null || "APPROVED".equals(tractor.getApprovalStatus()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<TractorPositionView> views = tractorRepository.findIndexablePositions();
+        positions.clear();
+        cells.clear();
+        for (TractorPositionView view : views) {
+            put(view.getTractorId(), view.getLatitude(), view.getLongitude());
+        }
+        logger.info("Tractor spatial index rebuilt with {} tractors in {} cells", positions.size(), cells.size());
+    }
+
+    /**
+     * Apply the current position of a tractor once the surrounding transaction commits
+     */
+    public void syncAfterCommit(Tractor tractor) {
+        if (tractor == null || tractor.getId() == null) {
+            return;
+        }
+        Long tractorId = tractor.getId();
+        boolean indexable = isIndexable(tractor);
+        double latitude = indexable ? tractor.getLatitude() : 0;
+        double longitude = indexable ? tractor.getLongitude() : 0;
+        afterCommit(() -> {
+            if (indexable) {
+                put(tractorId, latitude, longitude);
+            } else {
+                remove(tractorId);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long tractorId) {
+        if (tractorId != null) {
+            afterCommit(() -> remove(tractorId));
+        }
+    }
+
+    public synchronized void put(Long tractorId, double latitude, double longitude) {
+        long cell = cellKey(latCell(latitude), lngCell(longitude));
+        Position previous = positions.put(tractorId, new Position(latitude, longitude, cell));
+        if (previous != null && previous.cell != cell) {
+            removeFromCell(previous.cell, tractorId);
+        }
+        cells.computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet()).add(tractorId);
+    }
+
+    public synchronized void remove(Long tractorId) {
+        Position previous = positions.remove(tractorId);
+        if (previous != null) {
+            removeFromCell(previous.cell, tractorId);
+        }
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /** Haversine distances computed by queries so far, i.e. the candidates the grid did not prune. */
+    long getDistanceChecks() {
+        return distanceChecks.sum();
+    }
+
+    /**
+     * Tractors within radiusKm of the point, closest first, at most limit of them
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        double radius = Math.min(radiusKm, MAX_RADIUS_KM);
+        int latCenter = latCell(latitude);
+        int lngCenter = lngCell(longitude);
+        int latSpan = (int) Math.ceil(radius / CELL_KM);
+        int lngSpan = lngSpan(latitude, radius);
+
+        List<Hit> hits = new ArrayList<>();
+        for (int row = Math.max(0, latCenter - latSpan); row <= Math.min(LAT_CELLS - 1, latCenter + latSpan); row++) {
+            for (int dx = -lngSpan; dx <= lngSpan; dx++) {
+                collect(cells.get(cellKey(row, wrapLng(lngCenter + dx))), latitude, longitude, radius, hits);
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * The k tractors closest to the point, no further than maxRadiusKm, closest first.
+     *
+     * Rings of cells are visited outward from the query cell; after ring r every tractor
+     * not yet seen is at least r cells away, so the search stops as soon as the k-th best
+     * distance is within that bound.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int k, double maxRadiusKm) {
+        double radius = Math.min(maxRadiusKm, MAX_RADIUS_KM);
+        int latCenter = latCell(latitude);
+        int lngCenter = lngCell(longitude);
+        int maxRing = Math.max((int) Math.ceil(radius / CELL_KM), lngSpan(latitude, radius));
+        int total = positions.size();
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::getDistanceKm).reversed());
+        List<Hit> ringHits = new ArrayList<>();
+        int seen = 0;
+        for (int ring = 0; ring <= maxRing && k > 0; ring++) {
+            ringHits.clear();
+            for (int dy = -ring; dy <= ring; dy++) {
+                int row = latCenter + dy;
+                if (row < 0 || row >= LAT_CELLS) {
+                    continue;
+                }
+                boolean edgeRow = Math.abs(dy) == ring;
+                for (int dx = -ring; dx <= ring; dx += edgeRow || ring == 0 ? 1 : 2 * ring) {
+                    Set<Long> ids = cells.get(cellKey(row, wrapLng(lngCenter + dx)));
+                    if (ids != null) {
+                        seen += ids.size();
+                        collect(ids, latitude, longitude, radius, ringHits);
+                    }
+                }
+            }
+            for (Hit hit : ringHits) {
+                if (best.size() < k) {
+                    best.add(hit);
+                } else if (hit.distanceKm < best.peek().distanceKm) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+            if (seen >= total) {
+                break;
+            }
+            if (best.size() == k && best.peek().distanceKm <= coveredKm(latitude, ring)) {
+                break;
+            }
+        }
+
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return result;
+    }
+
+    private void collect(Set<Long> ids, double latitude, double longitude, double radiusKm, List<Hit> out) {
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            Position position = positions.get(id);
+            if (position == null) {
+                continue;
+            }
+            distanceChecks.increment();
+            double distance = TrackingMapper.computeDistanceKm(latitude, longitude, position.latitude, position.longitude);
+            if (distance <= radiusKm) {
+                out.add(new Hit(id, distance));
+            }
+        }
+    }
+
+    private void removeFromCell(long cell, Long tractorId) {
+        cells.computeIfPresent(cell, (c, ids) -> {
+            ids.remove(tractorId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Lower bound on the distance to any cell outside the first `ring` rings
+    private static double coveredKm(double latitude, int ring) {
+        return ring * CELL_KM * minCos(latitude, (ring + 1) * CELL_DEGREES);
+    }
+
+    // Number of longitude cells needed to cover radiusKm east and west of the point
+    private static int lngSpan(double latitude, double radiusKm) {
+        double cellWidthKm = CELL_KM * minCos(latitude, radiusKm / KM_PER_DEGREE + CELL_DEGREES);
+        return (int) Math.min((LNG_CELLS - 1) / 2, Math.ceil(radiusKm / cellWidthKm));
+    }
+
+    // Smallest cos(latitude) within latDelta degrees of the point, so cell widths are never overestimated
+    private static double minCos(double latitude, double latDelta) {
+        double extreme = Math.min(89.9, Math.abs(latitude) + latDelta);
+        return Math.cos(Math.toRadians(extreme));
+    }
+
+    private static int latCell(double latitude) {
+        return Math.max(0, Math.min(LAT_CELLS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+    }
+
+    private static int lngCell(double longitude) {
+        return wrapLng((int) Math.floor((longitude + 180) / CELL_DEGREES));
+    }
+
+    private static int wrapLng(int cell) {
+        return Math.floorMod(cell, LNG_CELLS);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return (long) latCell * LNG_CELLS + lngCell;
+    }
+
+    // Run now when no transaction is open, otherwise only once the surrounding transaction commits
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Position {
+        final double latitude;
+        final double longitude;
+        final long cell;
+
+        Position(double latitude, double longitude, long cell) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+        }
+    }
+
+    public static final class Hit {
+        private final Long tractorId;
+        private final double distanceKm;
+
+        public Hit(Long tractorId, double distanceKm) {
+            this.tractorId = tractorId;
+            this.distanceKm = distanceKm;
+        }
+
+        public Long getTractorId() { return tractorId; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
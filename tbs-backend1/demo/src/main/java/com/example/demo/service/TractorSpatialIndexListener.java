@@ -0,0 +1,42 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.Tractor;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener on Tractor: keeps TractorSpatialIndex in step with every position or
+ * approval change, whether it comes from a live location update, a delivery-status
+ * change or an admin edit.
+ */
+@Component
+public class TractorSpatialIndexListener {
+    // Resolved lazily: entity listeners are created while the EntityManagerFactory is still being built
+    private final ObjectProvider<TractorSpatialIndex> spatialIndex;
+
+    public TractorSpatialIndexListener(ObjectProvider<TractorSpatialIndex> spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Tractor tractor) {
+        TractorSpatialIndex index = spatialIndex.getIfAvailable();
+        if (index != null) {
+            index.syncAfterCommit(tractor);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Tractor tractor) {
+        TractorSpatialIndex index = spatialIndex.getIfAvailable();
+        if (index != null) {
+            index.removeAfterCommit(tractor.getId());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.TractorStats;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.FeedbackRepository;
+import com.example.demo.repository.TractorBookingCountsView;
+import com.example.demo.repository.TractorRatingTotalsView;
+import com.example.demo.repository.TractorStatsRepository;
+
+/**
+ * Maintains the tractor_stats counters. Booking and feedback writes apply their deltas in
+ * the caller's transaction; a periodic reconciler recomputes the counters from the
+ * bookings and feedback tables and repairs any drift (e.g. rows removed by cascades).
+ */
+@Service
+public class TractorStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(TractorStatsService.class);
+
+    private final TractorStatsRepository tractorStatsRepository;
+    private final BookingRepository bookingRepository;
+    private final FeedbackRepository feedbackRepository;
+    private final TransactionTemplate repairTransaction;
+
+    public TractorStatsService(TractorStatsRepository tractorStatsRepository, BookingRepository bookingRepository,
+                               FeedbackRepository feedbackRepository, PlatformTransactionManager transactionManager) {
+        this.tractorStatsRepository = tractorStatsRepository;
+        this.bookingRepository = bookingRepository;
+        this.feedbackRepository = feedbackRepository;
+        this.repairTransaction = new TransactionTemplate(transactionManager);
+        this.repairTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Whether a booking counts towards totalBookings: every booking except those still in,
+     * or refused by, async intake. Must stay in line with BookingRepository.countBookingsByTractor.
+     */
+    public static boolean isTotal(Booking booking) {
+        return !BookingIntakeService.PENDING_INTAKE.equals(booking.getStatus())
+            && !BookingIntakeService.INTAKE_REJECTED.equals(booking.getStatus());
+    }
+
+    /**
+     * Whether a booking counts towards activeBookings. Must stay in line with
+     * BookingRepository.countBookingsByTractor.
+     */
+    public static boolean isActive(Booking booking) {
+        return BookingIntervalIndex.isIndexable(booking);
+    }
+
+    public static boolean isCompleted(Booking booking) {
+        return "COMPLETED".equals(booking.getStatus());
+    }
+
+    /**
+     * Apply the counter changes between what tractor_stats last saw of this booking and
+     * its current state. Call in the same transaction as the booking save, then
+     * BookingWriteService.markCounted once every derived table has been updated.
+     */
+    @Transactional
+    public void recordBookingWrite(Booking booking) {
+        Long tractorId = booking.getTractor() != null ? booking.getTractor().getId() : null;
+        boolean total = isTotal(booking);
+        boolean active = isActive(booking);
+        boolean completed = isCompleted(booking);
+
+        if (!booking.isCounted()) {
+            if (total || active || completed) {
+                addBookingCounts(tractorId, total ? 1 : 0, active ? 1 : 0, completed ? 1 : 0);
+            }
+        } else if (!Objects.equals(booking.getCountedTractorId(), tractorId)) {
+            addBookingCounts(booking.getCountedTractorId(), booking.isCountedTotal() ? -1 : 0,
+                booking.isCountedActive() ? -1 : 0, booking.isCountedCompleted() ? -1 : 0);
+            addBookingCounts(tractorId, total ? 1 : 0, active ? 1 : 0, completed ? 1 : 0);
+        } else {
+            int totalDelta = (total ? 1 : 0) - (booking.isCountedTotal() ? 1 : 0);
+            int activeDelta = (active ? 1 : 0) - (booking.isCountedActive() ? 1 : 0);
+            int completedDelta = (completed ? 1 : 0) - (booking.isCountedCompleted() ? 1 : 0);
+            if (totalDelta != 0 || activeDelta != 0 || completedDelta != 0) {
+                addBookingCounts(tractorId, totalDelta, activeDelta, completedDelta);
+            }
+        }
+    }
+
+    @Transactional
+    public void recordRating(Long tractorId, int rating) {
+        LocalDateTime now = LocalDateTime.now();
+        if (tractorStatsRepository.addRating(tractorId, rating, now) == 0) {
+            tractorStatsRepository.insertIfAbsent(tractorId, now);
+            tractorStatsRepository.addRating(tractorId, rating, now);
+        }
+    }
+
+    /**
+     * Average rating read straight from the counters row
+     */
+    public double averageRating(Long tractorId) {
+        Double average = tractorStatsRepository.averageRating(tractorId);
+        return average != null ? average : 0.0;
+    }
+
+    public TractorStats forTractor(Long tractorId) {
+        return tractorStatsRepository.findById(tractorId).orElseGet(() -> new TractorStats(tractorId));
+    }
+
+    /**
+     * Counters for the given tractors; tractors without a row get zeroed stats
+     */
+    public Map<Long, TractorStats> forTractors(Collection<Long> tractorIds) {
+        Map<Long, TractorStats> byTractor = new HashMap<>();
+        if (tractorIds.isEmpty()) {
+            return byTractor;
+        }
+        tractorStatsRepository.findAllById(tractorIds).forEach(s -> byTractor.put(s.getTractorId(), s));
+        for (Long id : tractorIds) {
+            byTractor.computeIfAbsent(id, TractorStats::new);
+        }
+        return byTractor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Recompute every tractor's counters and repair the rows that drifted. Each repair
+     * locks the row and recounts that tractor in its own transaction, so concurrent
+     * increments are never lost to a stale recount.
+     */
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-interval-ms:3600000}",
+               initialDelayString = "${app.stats.reconcile-interval-ms:3600000}")
+    public Map<String, Object> reconcile() {
+        Map<Long, long[]> expected = new HashMap<>();
+        for (TractorBookingCountsView view : bookingRepository.countBookingsByTractor()) {
+            long[] counters = expected.computeIfAbsent(view.getTractorId(), id -> new long[5]);
+            counters[0] = orZero(view.getTotalBookings());
+            counters[1] = orZero(view.getActiveBookings());
+            counters[2] = orZero(view.getCompletedBookings());
+        }
+        for (TractorRatingTotalsView view : feedbackRepository.sumRatingsByTractor()) {
+            long[] counters = expected.computeIfAbsent(view.getTractorId(), id -> new long[5]);
+            counters[3] = orZero(view.getRatingSum());
+            counters[4] = orZero(view.getRatingCount());
+        }
+
+        Set<Long> drifted = new HashSet<>();
+        Set<Long> seen = new HashSet<>();
+        for (TractorStats stats : tractorStatsRepository.findAll()) {
+            seen.add(stats.getTractorId());
+            long[] counters = expected.getOrDefault(stats.getTractorId(), new long[5]);
+            if (!matches(stats, counters)) {
+                drifted.add(stats.getTractorId());
+            }
+        }
+        for (Map.Entry<Long, long[]> entry : expected.entrySet()) {
+            if (!seen.contains(entry.getKey())) {
+                drifted.add(entry.getKey());
+            }
+        }
+
+        List<Long> repaired = new ArrayList<>();
+        for (Long tractorId : drifted) {
+            try {
+                if (Boolean.TRUE.equals(repairTransaction.execute(status -> repair(tractorId)))) {
+                    repaired.add(tractorId);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to reconcile tractor_stats for tractor {}", tractorId, e);
+            }
+        }
+        if (!repaired.isEmpty()) {
+            logger.warn("Reconciled tractor_stats drift for tractors {}", repaired);
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("checked", seen.size());
+        report.put("drifted", drifted.size());
+        report.put("repaired", repaired);
+        return report;
+    }
+
+    private boolean repair(Long tractorId) {
+        LocalDateTime now = LocalDateTime.now();
+        tractorStatsRepository.insertIfAbsent(tractorId, now);
+        // Locking read first, so the recounts below see every commit that touched this row
+        TractorStats stats = tractorStatsRepository.findForUpdate(tractorId).orElse(null);
+        if (stats == null) {
+            return false;
+        }
+        long[] counters = new long[5];
+        bookingRepository.countBookingsForTractor(tractorId).ifPresent(view -> {
+            counters[0] = orZero(view.getTotalBookings());
+            counters[1] = orZero(view.getActiveBookings());
+            counters[2] = orZero(view.getCompletedBookings());
+        });
+        feedbackRepository.sumRatingsForTractor(tractorId).ifPresent(view -> {
+            counters[3] = orZero(view.getRatingSum());
+            counters[4] = orZero(view.getRatingCount());
+        });
+        if (matches(stats, counters)) {
+            return false;
+        }
+        stats.setTotalBookings(counters[0]);
+        stats.setActiveBookings(counters[1]);
+        stats.setCompletedBookings(counters[2]);
+        stats.setRatingSum(counters[3]);
+        stats.setRatingCount(counters[4]);
+        stats.setUpdatedAt(now);
+        tractorStatsRepository.save(stats);
+        return true;
+    }
+
+    private void addBookingCounts(Long tractorId, long total, long active, long completed) {
+        if (tractorId == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (tractorStatsRepository.addBookingCounts(tractorId, total, active, completed, now) == 0) {
+            tractorStatsRepository.insertIfAbsent(tractorId, now);
+            tractorStatsRepository.addBookingCounts(tractorId, total, active, completed, now);
+        }
+    }
+
+    private static boolean matches(TractorStats stats, long[] counters) {
+        return orZero(stats.getTotalBookings()) == counters[0]
+            && orZero(stats.getActiveBookings()) == counters[1]
+            && orZero(stats.getCompletedBookings()) == counters[2]
+            && orZero(stats.getRatingSum()) == counters[3]
+            && orZero(stats.getRatingCount()) == counters[4];
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
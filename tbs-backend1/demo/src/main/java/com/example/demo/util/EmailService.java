@@ -14,6 +14,7 @@ import com.example.demo.model.Tractor;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @Service
 public class EmailService {
@@ -333,6 +334,53 @@ public class EmailService {
         }
     }
     
+    /**
+     * One confirmation for all legs of a farm job, instead of one email per booking
+     */
+    public void sendJobBookingCreatedEmail(User customer, List<Booking> legs) {
+        try {
+            String subject = "Job Booking Confirmation - Tractor Sewa";
+            String htmlContent = buildBrandedTemplate(
+                customer.getName() != null ? customer.getName() : "Customer",
+                "Job Booking Created",
+                "Your job booking of " + legs.size() + " tractor booking(s) has been successfully created and is pending approval. " +
+                "You will receive an email notification as each booking is approved.",
+                "📋",
+                "#fef3c7",
+                formatJobLegs(legs, "Job Bookings", false)
+            );
+            sendEmail(customer.getEmail(), customer.getName(), subject, htmlContent);
+        } catch (Exception e) {
+            logger.error("Failed to send job booking created email", e);
+        }
+    }
+    
+    /**
+     * One notification per tractor owner listing only the job legs on that owner's tractors
+     */
+    public void sendTractorOwnerJobBookingEmail(User owner, List<Booking> legs) {
+        try {
+            if (owner.getEmail() == null || owner.getEmail().isEmpty()) {
+                logger.warn("Cannot send job booking email: tractor owner email is null or empty for owner {}", owner.getId());
+                return;
+            }
+            String subject = "New Job Booking Received - Tractor Sewa";
+            String htmlContent = buildBrandedTemplate(
+                owner.getName() != null ? owner.getName() : "Tractor Owner",
+                "New Job Booking Received",
+                "You have received " + legs.size() + " new booking(s) for your tractors as part of one job. " +
+                "The bookings are pending approval. You will be notified once they're approved and payment is confirmed.",
+                "📋",
+                "#dbeafe",
+                formatJobLegs(legs, "New Booking Details", true)
+            );
+            sendEmail(owner.getEmail(), owner.getName(), subject, htmlContent);
+            logger.info("Job booking email sent successfully to tractor owner: {} for {} booking(s)", owner.getEmail(), legs.size());
+        } catch (Exception e) {
+            logger.error("Failed to send tractor owner job booking email to owner {}", owner.getId(), e);
+        }
+    }
+    
     public void sendBookingApprovedEmail(Booking booking) {
         try {
             User user = booking.getUser();
@@ -620,6 +668,50 @@ public class EmailService {
         return details.toString();
     }
     
+    private String formatJobLegs(List<Booking> legs, String heading, boolean includeCustomer) {
+        String label = "padding: 8px; color: #6b7280; font-size: 13px; font-weight: 600; text-align: left; border-bottom: 1px solid #e5e7eb;";
+        String cell = "padding: 8px; color: #1f2937; font-size: 13px; border-bottom: 1px solid #e5e7eb;";
+        StringBuilder details = new StringBuilder();
+        details.append("<div style='background-color: #f9fafb; border-radius: 6px; padding: 20px; margin: 20px 0;'>");
+        details.append("<h3 style='margin: 0 0 15px 0; color: #1f2937; font-size: 16px; font-weight: 600;'>").append(heading).append("</h3>");
+        details.append("<table style='width: 100%%; border-collapse: collapse;'><tr>");
+        details.append("<th style='").append(label).append("'>Booking ID</th>");
+        details.append("<th style='").append(label).append("'>Tractor</th>");
+        details.append("<th style='").append(label).append("'>Start</th>");
+        details.append("<th style='").append(label).append("'>End</th>");
+        details.append("<th style='").append(label).append("'>Amount</th></tr>");
+        
+        double total = 0;
+        for (Booking leg : legs) {
+            details.append("<tr><td style='").append(cell).append("'>#").append(leg.getId()).append("</td>");
+            details.append("<td style='").append(cell).append("'>").append(escapeHtml(leg.getTractor().getName())).append("</td>");
+            details.append("<td style='").append(cell).append("'>").append(leg.getStartAt().format(DATE_FORMATTER)).append("</td>");
+            details.append("<td style='").append(cell).append("'>").append(leg.getEndAt().format(DATE_FORMATTER)).append("</td>");
+            details.append("<td style='").append(cell).append("'>Rs. ").append(String.format("%.2f", leg.getTotalAmount())).append("</td></tr>");
+            total += leg.getTotalAmount() != null ? leg.getTotalAmount() : 0;
+        }
+        details.append("</table>");
+        
+        details.append("<table style='width: 100%%; border-collapse: collapse; margin-top: 10px;'>");
+        Booking first = legs.get(0);
+        if (includeCustomer && first.getUser() != null) {
+            details.append("<tr><td style='padding: 8px 0; color: #6b7280; font-size: 14px; font-weight: 600;'>Customer Name:</td>");
+            details.append("<td style='padding: 8px 0; color: #1f2937; font-size: 14px;'>").append(escapeHtml(first.getUser().getName() != null ? first.getUser().getName() : "N/A")).append("</td></tr>");
+            
+            details.append("<tr><td style='padding: 8px 0; color: #6b7280; font-size: 14px; font-weight: 600;'>Customer Email:</td>");
+            details.append("<td style='padding: 8px 0; color: #1f2937; font-size: 14px;'>").append(escapeHtml(first.getUser().getEmail() != null ? first.getUser().getEmail() : "N/A")).append("</td></tr>");
+        }
+        if (first.getDeliveryAddress() != null) {
+            details.append("<tr><td style='padding: 8px 0; color: #6b7280; font-size: 14px; font-weight: 600;'>Delivery Address:</td>");
+            details.append("<td style='padding: 8px 0; color: #1f2937; font-size: 14px;'>").append(escapeHtml(first.getDeliveryAddress())).append("</td></tr>");
+        }
+        details.append("<tr><td style='padding: 8px 0; color: #6b7280; font-size: 14px; font-weight: 600;'>Total Amount:</td>");
+        details.append("<td style='padding: 8px 0; color: #059669; font-size: 16px; font-weight: 700;'>Rs. ").append(String.format("%.2f", total)).append("</td></tr>");
+        
+        details.append("</table></div>");
+        return details.toString();
+    }
+    
     private String formatTractorOwnerBookingDetails(Booking booking, Tractor tractor, User customer) {
         StringBuilder details = new StringBuilder();
         details.append("<div style='background-color: #f9fafb; border-radius: 6px; padding: 20px; margin: 20px 0;'>");
@@ -0,0 +1,365 @@
+package com.example.demo.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * Offline router over a road graph loaded from a local file.
+ *
+ * File format, one record per line ('#' starts a comment):
+ * <pre>
+ *   v &lt;lat&gt; &lt;lng&gt;     a node; nodes are numbered from 0 in file order
+ *   e &lt;from&gt; &lt;to&gt;     a two-way road between two nodes
+ *   a &lt;from&gt; &lt;to&gt;     a one-way road
+ * </pre>
+ * Road lengths are the great-circle distance between their nodes. The graph is held in
+ * primitive arrays as compressed adjacency lists, and routes are found with A* using the
+ * great-circle distance to the destination as heuristic, so answers come back before
+ * route() returns.
+ */
+public final class GraphRoutingProvider implements RoutingProvider {
+    // Points farther than this from every node are off the map
+    static final double MAX_SNAP_KM = 5.0;
+    // Grid used to snap points to their nearest node; about 1.1 km north-south
+    private static final double CELL_DEGREES = 0.01;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    // Roads leaving node i are edgeTarget/edgeMeters[firstEdge[i] .. firstEdge[i + 1])
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final double[] edgeMeters;
+    // Nodes grouped by grid cell: cell cellKeys[c] holds cellNodes[cellStart[c] .. cellStart[c + 1])
+    private final long[] cellKeys;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+    // Per-thread search state, reused across queries and reset by bumping a generation stamp
+    private final ThreadLocal<Search> searches;
+
+    /**
+     * Builds the graph from node coordinates and directed roads edgeFrom[i] to edgeTo[i]
+     * for i below edgeCount.
+     */
+    public GraphRoutingProvider(double[] latitudes, double[] longitudes, int[] edgeFrom, int[] edgeTo, int edgeCount) {
+        int nodeCount = latitudes.length;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+
+        firstEdge = new int[nodeCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            checkNode(edgeFrom[i], nodeCount);
+            checkNode(edgeTo[i], nodeCount);
+            firstEdge[edgeFrom[i] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            firstEdge[node + 1] += firstEdge[node];
+        }
+        edgeTarget = new int[edgeCount];
+        edgeMeters = new double[edgeCount];
+        int[] next = Arrays.copyOf(firstEdge, nodeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            int from = edgeFrom[i];
+            int to = edgeTo[i];
+            int slot = next[from]++;
+            edgeTarget[slot] = to;
+            edgeMeters[slot] = meters(from, to);
+        }
+
+        long[] keys = new long[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            keys[node] = cellKey(cell(latitudes[node]), cell(longitudes[node]));
+        }
+        cellNodes = IntStream.range(0, nodeCount).boxed()
+            .sorted(Comparator.comparingLong(node -> keys[node]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        long[] uniqueKeys = new long[nodeCount];
+        int[] starts = new int[nodeCount + 1];
+        int cells = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            long key = keys[cellNodes[i]];
+            if (cells == 0 || uniqueKeys[cells - 1] != key) {
+                uniqueKeys[cells] = key;
+                starts[cells++] = i;
+            }
+        }
+        starts[cells] = nodeCount;
+        cellKeys = Arrays.copyOf(uniqueKeys, cells);
+        cellStart = Arrays.copyOf(starts, cells + 1);
+
+        searches = ThreadLocal.withInitial(() -> new Search(nodeCount));
+    }
+
+    /** Loads a graph file in the format described above. */
+    public static GraphRoutingProvider load(Path file) throws IOException {
+        double[] lats = new double[1024];
+        double[] lngs = new double[1024];
+        int nodes = 0;
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int edges = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String record = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (record.isEmpty()) {
+                    continue;
+                }
+                String[] parts = record.split("\\s+");
+                try {
+                    if (parts.length != 3) {
+                        throw new IllegalArgumentException("expected 3 fields");
+                    }
+                    switch (parts[0]) {
+                        case "v" -> {
+                            if (nodes == lats.length) {
+                                lats = Arrays.copyOf(lats, nodes * 2);
+                                lngs = Arrays.copyOf(lngs, nodes * 2);
+                            }
+                            lats[nodes] = Double.parseDouble(parts[1]);
+                            lngs[nodes] = Double.parseDouble(parts[2]);
+                            nodes++;
+                        }
+                        case "e", "a" -> {
+                            if (edges + 2 > from.length) {
+                                from = Arrays.copyOf(from, from.length * 2);
+                                to = Arrays.copyOf(to, to.length * 2);
+                            }
+                            int a = Integer.parseInt(parts[1]);
+                            int b = Integer.parseInt(parts[2]);
+                            from[edges] = a;
+                            to[edges++] = b;
+                            if ("e".equals(parts[0])) {
+                                from[edges] = b;
+                                to[edges++] = a;
+                            }
+                        }
+                        default -> throw new IllegalArgumentException("unknown record '" + parts[0] + "'");
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return new GraphRoutingProvider(Arrays.copyOf(lats, nodes), Arrays.copyOf(lngs, nodes), from, to, edges);
+    }
+
+    public int getNodeCount() { return latitudes.length; }
+    public int getEdgeCount() { return edgeTarget.length; }
+
+    @Override
+    public CompletableFuture<Route> route(double fromLat, double fromLng, double toLat, double toLng) {
+        return CompletableFuture.completedFuture(findRoute(fromLat, fromLng, toLat, toLng));
+    }
+
+    /** The shortest road route between the nodes nearest to both points, or null if there is none. */
+    public Route findRoute(double fromLat, double fromLng, double toLat, double toLng) {
+        int source = nearestNode(fromLat, fromLng);
+        int target = nearestNode(toLat, toLng);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+
+        Search search = searches.get();
+        search.reset();
+        search.reach(source, 0, -1, heuristic(source, target));
+        while (search.heapSize > 0) {
+            int node = search.pop();
+            if (node == target) {
+                break;
+            }
+            if (search.closed[node] == search.generation) {
+                continue;
+            }
+            search.closed[node] = search.generation;
+            double distance = search.distance[node];
+            for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++) {
+                int next = edgeTarget[edge];
+                if (search.closed[next] == search.generation) {
+                    continue;
+                }
+                double candidate = distance + edgeMeters[edge];
+                if (search.seen[next] != search.generation || candidate < search.distance[next]) {
+                    search.reach(next, candidate, node, candidate + heuristic(next, target));
+                }
+            }
+        }
+        if (search.seen[target] != search.generation) {
+            return null;
+        }
+
+        int hops = 0;
+        for (int node = target; node >= 0; node = search.parent[node]) {
+            hops++;
+        }
+        int[] path = new int[hops];
+        for (int node = target, i = hops - 1; node >= 0; node = search.parent[node], i--) {
+            path[i] = node;
+        }
+
+        // The route runs from the actual points, through the snapped nodes
+        boolean offSource = latitudes[source] != fromLat || longitudes[source] != fromLng;
+        boolean offTarget = latitudes[target] != toLat || longitudes[target] != toLng;
+        int size = hops + (offSource ? 1 : 0) + (offTarget ? 1 : 0);
+        double[] routeLats = new double[size];
+        double[] routeLngs = new double[size];
+        int point = 0;
+        double km = search.distance[target] / 1000.0;
+        if (offSource) {
+            routeLats[point] = fromLat;
+            routeLngs[point++] = fromLng;
+            km += TrackingMapper.computeDistanceKm(fromLat, fromLng, latitudes[source], longitudes[source]);
+        }
+        for (int node : path) {
+            routeLats[point] = latitudes[node];
+            routeLngs[point++] = longitudes[node];
+        }
+        if (offTarget) {
+            routeLats[point] = toLat;
+            routeLngs[point] = toLng;
+            km += TrackingMapper.computeDistanceKm(latitudes[target], longitudes[target], toLat, toLng);
+        }
+        return new Route(routeLats, routeLngs, km);
+    }
+
+    /** The node nearest to the point, or -1 if none is within MAX_SNAP_KM. */
+    int nearestNode(double lat, double lng) {
+        int centerLat = cell(lat);
+        int centerLng = cell(lng);
+        // Narrowest cell side; nodes in ring r are at least (r - 1) cell sides away
+        double cellKm = CELL_DEGREES * 111.32 * Math.max(0.1, Math.cos(Math.toRadians(lat)));
+        int best = -1;
+        double bestKm = MAX_SNAP_KM;
+        for (int ring = 0; (ring - 1) * cellKm <= bestKm; ring++) {
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                for (int dLng = -ring; dLng <= ring; dLng++) {
+                    if (Math.max(Math.abs(dLat), Math.abs(dLng)) != ring) {
+                        continue;
+                    }
+                    int c = Arrays.binarySearch(cellKeys, cellKey(centerLat + dLat, centerLng + dLng));
+                    if (c < 0) {
+                        continue;
+                    }
+                    for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                        int node = cellNodes[i];
+                        double km = TrackingMapper.computeDistanceKm(lat, lng, latitudes[node], longitudes[node]);
+                        if (km <= bestKm) {
+                            bestKm = km;
+                            best = node;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private double heuristic(int node, int target) {
+        return meters(node, target);
+    }
+
+    private double meters(int from, int to) {
+        return TrackingMapper.computeDistanceKm(latitudes[from], longitudes[from], latitudes[to], longitudes[to]) * 1000.0;
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xffffffffL);
+    }
+
+    private static void checkNode(int node, int nodeCount) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IllegalArgumentException("no node " + node);
+        }
+    }
+
+    /** A* state for one thread: distances and parents, plus an open-set heap keyed by estimated total. */
+    private static final class Search {
+        final double[] distance;
+        final int[] parent;
+        // Entries equal to generation are valid for the current search
+        final int[] seen;
+        final int[] closed;
+        int generation;
+        int[] heapNodes = new int[256];
+        double[] heapKeys = new double[256];
+        int heapSize;
+
+        Search(int nodeCount) {
+            distance = new double[nodeCount];
+            parent = new int[nodeCount];
+            seen = new int[nodeCount];
+            closed = new int[nodeCount];
+        }
+
+        void reset() {
+            heapSize = 0;
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                generation = 1;
+            }
+        }
+
+        // Records a shorter distance to node and queues it; older heap entries are skipped once it is closed
+        void reach(int node, double nodeDistance, int from, double estimate) {
+            seen[node] = generation;
+            distance[node] = nodeDistance;
+            parent[node] = from;
+            if (heapSize == heapNodes.length) {
+                heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int up = (i - 1) / 2;
+                if (heapKeys[up] <= estimate) {
+                    break;
+                }
+                heapNodes[i] = heapNodes[up];
+                heapKeys[i] = heapKeys[up];
+                i = up;
+            }
+            heapNodes[i] = node;
+            heapKeys[i] = estimate;
+        }
+
+        int pop() {
+            int top = heapNodes[0];
+            int lastNode = heapNodes[--heapSize];
+            double lastKey = heapKeys[heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (lastKey <= heapKeys[child]) {
+                    break;
+                }
+                heapNodes[i] = heapNodes[child];
+                heapKeys[i] = heapKeys[child];
+                i = child;
+            }
+            heapNodes[i] = lastNode;
+            heapKeys[i] = lastKey;
+            return top;
+        }
+    }
+}
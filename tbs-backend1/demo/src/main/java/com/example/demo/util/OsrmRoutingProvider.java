@@ -0,0 +1,120 @@
+package com.example.demo.util;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Routes from an OSRM server over HTTP, fetched with sendAsync on a small bounded executor.
+ */
+public final class OsrmRoutingProvider implements RoutingProvider {
+    private static final Logger logger = LoggerFactory.getLogger(OsrmRoutingProvider.class);
+
+    public static final String PUBLIC_BASE_URL = "http://router.project-osrm.org/route/v1/driving";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+
+    public OsrmRoutingProvider() {
+        this(PUBLIC_BASE_URL);
+    }
+
+    public OsrmRoutingProvider(String baseUrl) {
+        this.baseUrl = baseUrl;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), threads(), new ThreadPoolExecutor.AbortPolicy());
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<Route> route(double fromLat, double fromLng, double toLat, double toLng) {
+        // OSRM API format: /route/v1/{profile}/{coordinates}?overview=full&geometries=polyline
+        String url = String.format("%s/%f,%f;%f,%f?overview=full&geometries=polyline",
+            baseUrl, fromLng, fromLat, toLng, toLat);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .thenApply(OsrmRoutingProvider::parseRoute);
+    }
+
+    private static Route parseRoute(HttpResponse<String> response) {
+        try {
+            if (response.statusCode() == 200) {
+                JsonNode root = objectMapper.readTree(response.body());
+                JsonNode routes = root.get("routes");
+                
+                if (routes != null && routes.isArray() && routes.size() > 0) {
+                    JsonNode route = routes.get(0);
+                    JsonNode geometry = route.get("geometry");
+                    JsonNode distanceNode = route.get("distance");
+
+                    // Polyline geometry decodes straight into coordinate arrays, and is kept for clients that ask for it
+                    if (geometry != null && geometry.isTextual()) {
+                        String polyline = geometry.asText();
+                        double[][] points = PolylineCodec.decode(polyline);
+                        double[] latitudes = points[0];
+                        double[] longitudes = points[1];
+
+                        // Calculate distance from route (in meters, convert to km)
+                        double distanceMeters = distanceNode != null ? distanceNode.asDouble(0) : 0;
+                        double distanceKm = distanceMeters / 1000.0;
+
+                        // If distance is 0, calculate from route geometry
+                        if (distanceKm <= 0 && latitudes.length >= 2) {
+                            distanceKm = calculateRouteDistance(latitudes, longitudes);
+                        }
+
+                        return new Route(latitudes, longitudes, distanceKm, polyline);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to parse route from OSRM: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private static double calculateRouteDistance(double[] latitudes, double[] longitudes) {
+        double totalDistance = 0;
+        for (int i = 1; i < latitudes.length; i++) {
+            totalDistance += TrackingMapper.computeDistanceKm(
+                latitudes[i - 1], longitudes[i - 1],
+                latitudes[i], longitudes[i]
+            );
+        }
+        return totalDistance;
+    }
+
+    private static ThreadFactory threads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "route-refresh-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.util;
+
+import java.util.Arrays;
+
+/**
+ * Encoded polyline format (precision 5), as used by OSRM and Google Maps: every
+ * coordinate is a zigzag-encoded delta from the previous point in base-64 chunks, so a
+ * point usually costs 2-8 characters instead of a JSON object.
+ */
+public final class PolylineCodec {
+    private static final double SCALE = 1e5;
+
+    private PolylineCodec() {}
+
+    /** Encodes points[from .. to) given as parallel latitude and longitude arrays. */
+    public static String encode(double[] latitudes, double[] longitudes, int from, int to) {
+        StringBuilder out = new StringBuilder((to - from) * 8);
+        long previousLat = 0;
+        long previousLng = 0;
+        for (int i = from; i < to; i++) {
+            long lat = Math.round(latitudes[i] * SCALE);
+            long lng = Math.round(longitudes[i] * SCALE);
+            encodeValue(lat - previousLat, out);
+            encodeValue(lng - previousLng, out);
+            previousLat = lat;
+            previousLng = lng;
+        }
+        return out.toString();
+    }
+
+    public static String encode(double[] latitudes, double[] longitudes) {
+        return encode(latitudes, longitudes, 0, latitudes.length);
+    }
+
+    /**
+     * Decodes a polyline into {latitudes, longitudes}. Throws IllegalArgumentException if
+     * the string is truncated or contains characters outside the format.
+     */
+    public static double[][] decode(String polyline) {
+        int length = polyline.length();
+        // Every coordinate takes at least one character
+        double[] latitudes = new double[length / 2 + 1];
+        double[] longitudes = new double[length / 2 + 1];
+        int points = 0;
+        int index = 0;
+        long lat = 0;
+        long lng = 0;
+        while (index < length) {
+            for (int axis = 0; axis < 2; axis++) {
+                long result = 0;
+                int shift = 0;
+                int chunk;
+                do {
+                    if (index >= length || shift > 60) {
+                        throw new IllegalArgumentException("Truncated polyline");
+                    }
+                    chunk = polyline.charAt(index++) - 63;
+                    if (chunk < 0 || chunk > 63) {
+                        throw new IllegalArgumentException("Invalid polyline character at " + (index - 1));
+                    }
+                    result |= (long) (chunk & 0x1f) << shift;
+                    shift += 5;
+                } while (chunk >= 0x20);
+                long delta = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+                if (axis == 0) {
+                    lat += delta;
+                } else {
+                    lng += delta;
+                }
+            }
+            latitudes[points] = lat / SCALE;
+            longitudes[points] = lng / SCALE;
+            points++;
+        }
+        return new double[][] { Arrays.copyOf(latitudes, points), Arrays.copyOf(longitudes, points) };
+    }
+
+    private static void encodeValue(long value, StringBuilder out) {
+        long bits = value < 0 ? ~(value << 1) : value << 1;
+        while (bits >= 0x20) {
+            out.append((char) ((0x20 | (bits & 0x1f)) + 63));
+            bits >>= 5;
+        }
+        out.append((char) (bits + 63));
+    }
+}
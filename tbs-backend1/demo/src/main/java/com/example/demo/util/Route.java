@@ -0,0 +1,108 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * A road route as served to tracking clients: its points in travel order, held in
+ * parallel primitive arrays, and its length. Routes are cached and shared, so the arrays
+ * must not be modified.
+ */
+public final class Route {
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double distanceKm;
+    // Encoded on first use and kept with the cached route
+    private volatile String polyline;
+    // Simplified variants by power-of-two tolerance exponent, so each zoom level costs one pass
+    private final Map<Integer, Route> simplified = new ConcurrentHashMap<>();
+
+    public Route(double[] latitudes, double[] longitudes, double distanceKm) {
+        this(latitudes, longitudes, distanceKm, null);
+    }
+
+    /** A route whose encoded polyline is already known, e.g. because the router sent it. */
+    public Route(double[] latitudes, double[] longitudes, double distanceKm, String polyline) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.distanceKm = distanceKm;
+        this.polyline = polyline;
+    }
+
+    public int size() { return latitudes.length; }
+    public double[] getLatitudes() { return latitudes; }
+    public double[] getLongitudes() { return longitudes; }
+    public double getDistanceKm() { return distanceKm; }
+
+    public String getPolyline() {
+        String encoded = polyline;
+        if (encoded == null) {
+            encoded = PolylineCodec.encode(latitudes, longitudes);
+            polyline = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * This route with points dropped while staying within toleranceMeters of it. The
+     * tolerance is rounded down to a power of two metres, and each variant is computed once
+     * and kept with this route; tolerances under half a metre return the route itself.
+     */
+    public Route simplify(double toleranceMeters) {
+        if (!(toleranceMeters >= 0.5) || latitudes.length <= 2) {
+            return this;
+        }
+        int exponent = Math.min(Math.getExponent(toleranceMeters), 20);
+        return simplified.computeIfAbsent(exponent, e -> {
+            int[] kept = RouteSimplifier.keep(latitudes, longitudes, Math.scalb(1.0, e));
+            if (kept.length == latitudes.length) {
+                return this;
+            }
+            double[] keptLats = new double[kept.length];
+            double[] keptLngs = new double[kept.length];
+            for (int i = 0; i < kept.length; i++) {
+                keptLats[i] = latitudes[kept[i]];
+                keptLngs[i] = longitudes[kept[i]];
+            }
+            return new Route(keptLats, keptLngs, distanceKm);
+        });
+    }
+
+    /** The points as a JSON array of {lat, lng} objects, written straight from the arrays. */
+    public JsonSerializable getPoints() {
+        return new Points(latitudes, longitudes);
+    }
+
+    private static final class Points extends JsonSerializable.Base {
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        Points(double[] latitudes, double[] longitudes) {
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+
+        @Override
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartArray();
+            for (int i = 0; i < latitudes.length; i++) {
+                gen.writeStartObject();
+                gen.writeNumberField("lat", latitudes[i]);
+                gen.writeNumberField("lng", longitudes[i]);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+            serialize(gen, serializers);
+        }
+    }
+}
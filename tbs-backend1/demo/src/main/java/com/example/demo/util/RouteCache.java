@@ -0,0 +1,86 @@
+package com.example.demo.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, expiring cache of routes keyed by origin and destination.
+ *
+ * Coordinates are snapped to a grid of about 50 m, so a tractor that is parked or crawling
+ * along keeps hitting the same entry between polls. The least recently used routes are
+ * dropped once maxEntries is reached, and every route expires after its ttl.
+ */
+public final class RouteCache<V> {
+    // About 50 m of latitude; cells are narrower east-west away from the equator
+    public static final double CELL_DEGREES = 0.00045;
+
+    public record Key(long fromLat, long fromLng, long toLat, long toLng) {}
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<Key, Entry<V>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public RouteCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry<V>> eldest) {
+                if (size() > RouteCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static Key key(double fromLat, double fromLng, double toLat, double toLng) {
+        return new Key(cell(fromLat), cell(fromLng), cell(toLat), cell(toLng));
+    }
+
+    /** The cached route, or null if there is none or it has expired. */
+    public synchronized V get(Key key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            expirations.incrementAndGet();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    public void put(Key key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    public synchronized void put(Key key, V value, long ttlMillis) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public long getExpirations() { return expirations.get(); }
+
+    private static long cell(double degrees) {
+        return Math.round(degrees / CELL_DEGREES);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+}
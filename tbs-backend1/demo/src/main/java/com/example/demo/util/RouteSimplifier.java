@@ -0,0 +1,99 @@
+package com.example.demo.util;
+
+import java.util.Arrays;
+
+/**
+ * Douglas-Peucker line simplification for routes.
+ *
+ * Points are projected onto a local flat plane in metres, which is accurate enough over
+ * the length of a delivery route, and the recursion runs on an explicit stack so long
+ * routes cannot overflow the call stack.
+ */
+public final class RouteSimplifier {
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private RouteSimplifier() {}
+
+    /**
+     * Indices of the points to keep, in order, so that no dropped point lies farther than
+     * toleranceMeters from the simplified line. The first and last points are always kept.
+     */
+    public static int[] keep(double[] latitudes, double[] longitudes, double toleranceMeters) {
+        int count = latitudes.length;
+        if (count <= 2) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        double xScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitudes[0]));
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+
+        boolean[] kept = new boolean[count];
+        kept[0] = true;
+        kept[count - 1] = true;
+        int keptCount = 2;
+        // Pending (first, last) index pairs
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double ax = longitudes[first] * xScale;
+            double ay = latitudes[first] * METERS_PER_DEGREE;
+            double bx = longitudes[last] * xScale;
+            double by = latitudes[last] * METERS_PER_DEGREE;
+            double farthest = -1;
+            int farthestIndex = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSquared(longitudes[i] * xScale, latitudes[i] * METERS_PER_DEGREE, ax, ay, bx, by);
+                if (d > farthest) {
+                    farthest = d;
+                    farthestIndex = i;
+                }
+            }
+            if (farthestIndex < 0 || farthest <= toleranceSquared) {
+                continue;
+            }
+            kept[farthestIndex] = true;
+            keptCount++;
+            if (top + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = first;
+            stack[top++] = farthestIndex;
+            stack[top++] = farthestIndex;
+            stack[top++] = last;
+        }
+
+        int[] indices = new int[keptCount];
+        for (int i = 0, k = 0; i < count; i++) {
+            if (kept[i]) {
+                indices[k++] = i;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * About one screen pixel, in metres, on a web-mercator map at the given zoom and
+     * latitude: the tolerance below which simplification is invisible.
+     */
+    public static double toleranceForZoom(int zoom, double latitude) {
+        return 156_543.03 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
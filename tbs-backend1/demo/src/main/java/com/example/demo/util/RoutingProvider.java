@@ -0,0 +1,14 @@
+package com.example.demo.util;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Road routing for tracking payloads.
+ *
+ * Implementations complete with null when they have no route between the two points.
+ * In-process routers may return an already completed future; TrackingMapper then serves
+ * the route on the same poll instead of the next one.
+ */
+public interface RoutingProvider {
+    CompletableFuture<Route> route(double fromLat, double fromLng, double toLat, double toLng);
+}
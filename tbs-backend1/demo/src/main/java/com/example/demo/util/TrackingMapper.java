@@ -1,33 +1,84 @@
 package com.example.demo.util;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.example.demo.model.Booking;
 import com.example.demo.model.Tractor;
 
 public final class TrackingMapper {
+    private static final Logger logger = LoggerFactory.getLogger(TrackingMapper.class);
 
-    private static final String OSRM_BASE_URL = "http://router.project-osrm.org/route/v1/driving";
-    private static final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(5))
-            .build();
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_ZOOM = 22;
+    private static final double MAX_TOLERANCE_METERS = 100_000;
+
+    // Route refreshes run off the request thread, at most MAX_ROUTE_REFRESHES at a time
+    private static final int MAX_ROUTE_REFRESHES = 16;
+
+    // Tracking pages poll every 10 seconds; routes are reused while both ends stay in the same ~50 m cell
+    private static final int ROUTE_CACHE_MAX_ENTRIES = 2000;
+    private static final long ROUTE_TTL_MILLIS = Duration.ofMinutes(10).toMillis();
+    // Failed lookups are remembered briefly so a routing outage does not cost a request per poll
+    private static final long FAILED_ROUTE_TTL_MILLIS = Duration.ofSeconds(30).toMillis();
+    private static final Route NO_ROUTE = new Route(new double[0], new double[0], 0);
+    private static final RouteCache<Route> routeCache = new RouteCache<>(ROUTE_CACHE_MAX_ENTRIES, ROUTE_TTL_MILLIS);
+    // Last route fetched per tractor, served while a newer one is being fetched
+    private static final Map<Long, LastRoute> lastRoutes = new ConcurrentHashMap<>();
+    private static final Map<Object, Boolean> refreshing = new ConcurrentHashMap<>();
+    // Installed at startup from app.routing.*; until then payloads fall back to a straight line
+    private static volatile RoutingProvider routingProvider;
 
     private TrackingMapper() {}
 
+    /** How the route is written: a JSON array of {lat, lng} points, or one encoded polyline string. */
+    public enum RouteFormat {
+        POINTS, POLYLINE;
+
+        /** Parses a routeFormat request parameter; null means POINTS. */
+        public static RouteFormat parse(String value) {
+            if (value == null || value.isBlank() || "points".equalsIgnoreCase(value)) {
+                return POINTS;
+            }
+            if ("polyline".equalsIgnoreCase(value)) {
+                return POLYLINE;
+            }
+            throw new IllegalArgumentException("routeFormat must be points or polyline");
+        }
+    }
+
     public static Map<String, Object> buildPayload(Tractor tractor, Booking booking) {
+        return buildPayload(tractor, booking, RouteFormat.POINTS);
+    }
+
+    public static Map<String, Object> buildPayload(Tractor tractor, Booking booking, RouteFormat format) {
+        return buildPayload(tractor, booking, format, null, null);
+    }
+
+    /**
+     * Tracking payload with the route simplified for display: zoom (0-22) drops points
+     * closer than about a screen pixel at that map zoom, and tolerance gives the allowed
+     * deviation in metres directly, taking precedence over zoom. With neither, the full
+     * route is sent. distanceKm and etaMinutes always come from the full route.
+     */
+    public static Map<String, Object> buildPayload(Tractor tractor, Booking booking, RouteFormat format,
+                                                   Integer zoom, Double toleranceMeters) {
+        if (zoom != null && (zoom < 0 || zoom > MAX_ZOOM)) {
+            throw new IllegalArgumentException("zoom must be between 0 and " + MAX_ZOOM);
+        }
+        if (toleranceMeters != null && !(toleranceMeters >= 0 && toleranceMeters <= MAX_TOLERANCE_METERS)) {
+            throw new IllegalArgumentException("tolerance must be between 0 and " + MAX_TOLERANCE_METERS + " metres");
+        }
         Map<String, Object> payload = new HashMap<>();
+        if (format == RouteFormat.POLYLINE) {
+            payload.put("routeFormat", "polyline");
+        }
         payload.put("tractorId", tractor.getId());
         payload.put("tractorName", tractor.getName());
         payload.put("status", tractor.getStatus());
@@ -55,20 +106,26 @@ public final class TrackingMapper {
             payload.put("destination", destination);
 
             if (tractor.getLatitude() != null && tractor.getLongitude() != null) {
-                // Fetch route from OSRM for road-based routing
-                RouteResult routeResult = fetchRouteFromOSRM(
+                // Road-based route from the routing provider
+                Route routeResult = cachedRoute(
+                    tractor.getId(),
                     tractor.getLongitude(),
                     tractor.getLatitude(),
                     tractor.getDestinationLongitude(),
                     tractor.getDestinationLatitude()
                 );
 
-                if (routeResult != null && routeResult.route != null && !routeResult.route.isEmpty()) {
-                    payload.put("distanceKm", routeResult.distanceKm);
-                    payload.put("etaMinutes", estimateEtaMinutes(routeResult.distanceKm));
-                    payload.put("route", routeResult.route);
+                if (routeResult != null && routeResult.size() > 0) {
+                    payload.put("distanceKm", routeResult.getDistanceKm());
+                    payload.put("etaMinutes", estimateEtaMinutes(routeResult.getDistanceKm()));
+                    if (toleranceMeters != null) {
+                        routeResult = routeResult.simplify(toleranceMeters);
+                    } else if (zoom != null) {
+                        routeResult = routeResult.simplify(RouteSimplifier.toleranceForZoom(zoom, tractor.getLatitude()));
+                    }
+                    payload.put("route", format == RouteFormat.POLYLINE ? routeResult.getPolyline() : routeResult.getPoints());
                 } else {
-                    // Fallback to straight-line distance if OSRM fails
+                    // Fallback to straight-line distance if routing fails
                     double distanceKm = computeDistanceKm(
                         tractor.getLatitude(),
                         tractor.getLongitude(),
@@ -77,17 +134,19 @@ public final class TrackingMapper {
                     );
                     payload.put("distanceKm", distanceKm);
                     payload.put("etaMinutes", estimateEtaMinutes(distanceKm));
-                    payload.put("route", List.of(
-                        Map.of("lat", tractor.getLatitude(), "lng", tractor.getLongitude()),
-                        Map.of("lat", tractor.getDestinationLatitude(), "lng", tractor.getDestinationLongitude())
-                    ));
+                    Route straight = new Route(
+                        new double[] { tractor.getLatitude(), tractor.getDestinationLatitude() },
+                        new double[] { tractor.getLongitude(), tractor.getDestinationLongitude() },
+                        distanceKm
+                    );
+                    payload.put("route", format == RouteFormat.POLYLINE ? straight.getPolyline() : straight.getPoints());
                 }
             } else {
-                payload.put("route", List.of());
+                payload.put("route", format == RouteFormat.POLYLINE ? "" : List.of());
             }
         } else {
             payload.put("destination", null);
-            payload.put("route", List.of());
+            payload.put("route", format == RouteFormat.POLYLINE ? "" : List.of());
         }
 
         if (booking != null) {
@@ -168,79 +227,78 @@ public final class TrackingMapper {
         return payload;
     }
 
-    private static RouteResult fetchRouteFromOSRM(double lon1, double lat1, double lon2, double lat2) {
-        try {
-            // OSRM API format: /route/v1/{profile}/{coordinates}?overview=full&geometries=geojson
-            String url = String.format("%s/%f,%f;%f,%f?overview=full&geometries=geojson",
-                OSRM_BASE_URL, lon1, lat1, lon2, lat2);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofSeconds(10))
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonNode root = objectMapper.readTree(response.body());
-                JsonNode routes = root.get("routes");
-                
-                if (routes != null && routes.isArray() && routes.size() > 0) {
-                    JsonNode route = routes.get(0);
-                    JsonNode geometry = route.get("geometry");
-                    JsonNode distanceNode = route.get("distance");
-                    JsonNode durationNode = route.get("duration");
-
-                    if (geometry != null && geometry.has("coordinates")) {
-                        JsonNode coordinates = geometry.get("coordinates");
-                        List<Map<String, Double>> routePoints = new ArrayList<>();
-
-                        if (coordinates.isArray()) {
-                            for (JsonNode coord : coordinates) {
-                                if (coord.isArray() && coord.size() >= 2) {
-                                    // GeoJSON format: [longitude, latitude]
-                                    double lng = coord.get(0).asDouble();
-                                    double lat = coord.get(1).asDouble();
-                                    routePoints.add(Map.of("lat", lat, "lng", lng));
-                                }
-                            }
-                        }
-
-                        // Calculate distance from route (in meters, convert to km)
-                        double distanceMeters = distanceNode != null ? distanceNode.asDouble(0) : 0;
-                        double distanceKm = distanceMeters / 1000.0;
+    public static RouteCache<?> getRouteCache() {
+        return routeCache;
+    }
 
-                        // If distance is 0, calculate from route geometry
-                        if (distanceKm <= 0 && routePoints.size() >= 2) {
-                            distanceKm = calculateRouteDistance(routePoints);
-                        }
+    /** Routes later tracking payloads through the given provider; without one, routes are straight lines. */
+    public static void setRoutingProvider(RoutingProvider provider) {
+        routingProvider = provider;
+        routeCache.clear();
+        lastRoutes.clear();
+    }
 
-                        return new RouteResult(routePoints, distanceKm);
-                    }
+    /**
+     * The route to serve right now, never waiting on a remote router. A fresh cached route
+     * is returned as is; otherwise a refresh is started and, unless the provider answered
+     * in-process, the tractor's last known route to the same destination is served (null on
+     * the very first poll, which falls back to a straight line) until the next poll.
+     */
+    private static Route cachedRoute(Long tractorId, double lon1, double lat1, double lon2, double lat2) {
+        RouteCache.Key key = RouteCache.key(lat1, lon1, lat2, lon2);
+        Route cached = routeCache.get(key);
+        if (cached != null && cached != NO_ROUTE) {
+            return cached;
+        }
+        if (cached == null) {
+            CompletableFuture<Route> refresh = refreshRoute(tractorId, key, lon1, lat1, lon2, lat2);
+            if (refresh != null && refresh.isDone() && !refresh.isCompletedExceptionally()) {
+                Route route = refresh.join();
+                if (route != null) {
+                    return route;
                 }
             }
-        } catch (Exception e) {
-            // Log error but don't throw - fallback to straight-line distance
-            System.err.println("Failed to fetch route from OSRM: " + e.getMessage());
         }
-        return null;
+        LastRoute last = tractorId != null ? lastRoutes.get(tractorId) : null;
+        return last != null && last.sameDestination(key) ? last.route : null;
     }
 
-    private static double calculateRouteDistance(List<Map<String, Double>> routePoints) {
-        if (routePoints.size() < 2) {
-            return 0;
+    private static CompletableFuture<Route> refreshRoute(Long tractorId, RouteCache.Key key, double lon1, double lat1, double lon2, double lat2) {
+        RoutingProvider provider = routingProvider;
+        if (provider == null) {
+            return null;
+        }
+        // One refresh per tractor at a time (per route when there is no tractor id)
+        Object refreshKey = tractorId != null ? tractorId : key;
+        // Skipped refreshes are retried on a later poll, since the cache entry is still missing
+        if (refreshing.size() >= MAX_ROUTE_REFRESHES || refreshing.putIfAbsent(refreshKey, Boolean.TRUE) != null) {
+            return null;
         }
-        double totalDistance = 0;
-        for (int i = 1; i < routePoints.size(); i++) {
-            Map<String, Double> prev = routePoints.get(i - 1);
-            Map<String, Double> curr = routePoints.get(i);
-            totalDistance += computeDistanceKm(
-                prev.get("lat"), prev.get("lng"),
-                curr.get("lat"), curr.get("lng")
-            );
+        try {
+            return provider.route(lat1, lon1, lat2, lon2)
+                .whenComplete((fetched, error) -> {
+                    try {
+                        if (error != null) {
+                            // Log error but don't throw - fallback to last known or straight-line route
+                            logger.warn("Failed to fetch route: {}", error.getMessage());
+                        }
+                        if (error == null && fetched != null) {
+                            routeCache.put(key, fetched);
+                            if (tractorId != null) {
+                                lastRoutes.put(tractorId, new LastRoute(key, fetched));
+                            }
+                        } else {
+                            routeCache.put(key, NO_ROUTE, FAILED_ROUTE_TTL_MILLIS);
+                        }
+                    } finally {
+                        refreshing.remove(refreshKey);
+                    }
+                });
+        } catch (RuntimeException e) {
+            refreshing.remove(refreshKey);
+            logger.warn("Failed to fetch route: {}", e.getMessage());
+            return null;
         }
-        return totalDistance;
     }
 
     public static double computeDistanceKm(double lat1, double lon1, double lat2, double lon2) {
@@ -261,14 +319,17 @@ public final class TrackingMapper {
         return Math.max(1, Math.round(hours * 60));
     }
 
-    private static class RouteResult {
-        final List<Map<String, Double>> route;
-        final double distanceKm;
+    private static class LastRoute {
+        final RouteCache.Key key;
+        final Route route;
 
-        RouteResult(List<Map<String, Double>> route, double distanceKm) {
+        LastRoute(RouteCache.Key key, Route route) {
+            this.key = key;
             this.route = route;
-            this.distanceKm = distanceKm;
+        }
+
+        boolean sameDestination(RouteCache.Key other) {
+            return key.toLat() == other.toLat() && key.toLng() == other.toLng();
         }
     }
 }
-
@@ -0,0 +1,45 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.util.GraphRoutingProvider;
+import com.example.demo.util.OsrmRoutingProvider;
+
+/**
+ * app.routing.* picks the tracking router, and a bad choice fails startup
+ */
+class RoutingProviderSelectionTest {
+
+	@Test
+	void osrmIsBuiltFromItsUrl() throws IOException {
+		assertInstanceOf(OsrmRoutingProvider.class,
+			DemoApplication.createRoutingProvider("osrm", "http://localhost:5000/route/v1/driving", ""));
+	}
+
+	@Test
+	void graphIsLoadedFromItsFile(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("roads.txt");
+		Files.writeString(file, "v 27.700 85.300\nv 27.700 85.310\ne 0 1\n");
+
+		GraphRoutingProvider graph = assertInstanceOf(GraphRoutingProvider.class,
+			DemoApplication.createRoutingProvider("graph", "", file.toString()));
+		assertEquals(2, graph.getNodeCount());
+	}
+
+	@Test
+	void missingGraphFileOrUnknownProviderIsRefused(@TempDir Path dir) {
+		assertThrows(IllegalStateException.class,
+			() -> DemoApplication.createRoutingProvider("graph", "", dir.resolve("missing.txt").toString()));
+		assertThrows(IllegalStateException.class, () -> DemoApplication.createRoutingProvider("graph", "", ""));
+		assertThrows(IllegalStateException.class, () -> DemoApplication.createRoutingProvider("google", "", ""));
+	}
+}
@@ -0,0 +1,59 @@
+package com.example.demo;
+
+import java.time.LocalDateTime;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Payment;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+
+/**
+ * Unsaved entities with just the columns the schema requires, for tests that seed data.
+ */
+public final class TestFixtures {
+
+	private TestFixtures() {}
+
+	public static User user(String email, String role) {
+		User user = new User();
+		user.setName(email);
+		user.setEmail(email);
+		user.setPasswordHash("x");
+		user.setRole(role);
+		return user;
+	}
+
+	/** An approved, available tractor with the given number of units. */
+	public static Tractor tractor(String name, int quantity) {
+		Tractor tractor = new Tractor();
+		tractor.setName(name);
+		tractor.setHourlyRate(1000.0);
+		tractor.setAvailable(true);
+		tractor.setQuantity(quantity);
+		tractor.setApprovalStatus("APPROVED");
+		return tractor;
+	}
+
+	public static Booking booking(User user, Tractor tractor, LocalDateTime startAt, LocalDateTime endAt,
+								  String status, String adminStatus) {
+		Booking booking = new Booking();
+		booking.setUser(user);
+		booking.setTractor(tractor);
+		booking.setStartAt(startAt);
+		booking.setEndAt(endAt);
+		booking.setStatus(status);
+		booking.setAdminStatus(adminStatus);
+		booking.setTotalAmount(1000.0);
+		return booking;
+	}
+
+	public static Payment payment(Booking booking, double amount, String method, String status) {
+		Payment payment = new Payment();
+		payment.setBooking(booking);
+		payment.setAmount(amount);
+		payment.setMethod(method);
+		payment.setStatus(status);
+		payment.setCreatedAt(LocalDateTime.now());
+		return payment;
+	}
+}
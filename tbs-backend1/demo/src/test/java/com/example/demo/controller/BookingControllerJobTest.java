@@ -0,0 +1,89 @@
+package com.example.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.BookingWriteService;
+
+/**
+ * POST /api/bookings/jobs: malformed legs and the capacity rule shared with single bookings
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingControllerJobTest {
+	private static final LocalDateTime DAY = LocalDateTime.of(2031, 6, 2, 0, 0);
+
+	@Autowired
+	private BookingController bookingController;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+	private Principal principal;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.findByEmail("job-test@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("job-test@example.com", "USER")));
+		principal = user::getEmail;
+	}
+
+	@Test
+	void legWithoutAWindowIsABadRequest() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Job missing", 1));
+		Map<String, Object> body = Map.of("legs", List.of(
+			leg(tractor, at(8), at(10)),
+			Map.of("tractorId", tractor.getId(), "startAt", at(11).toString())));
+
+		ResponseEntity<?> response = bookingController.createJob(body, principal);
+
+		assertEquals(400, response.getStatusCode().value());
+		assertEquals(Map.of("error", "Leg 2: tractorId, startAt and endAt are required"), response.getBody());
+	}
+
+	@Test
+	void legsAreCheckedLikeSingleBookings() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Job capacity", 1));
+		// Pending legs hold no unit, whether they come from one job or from separate bookings
+		ResponseEntity<?> overlapping = bookingController.createJob(Map.of("legs", List.of(
+			leg(tractor, at(8), at(10)), leg(tractor, at(9), at(11)))), principal);
+		assertEquals(200, overlapping.getStatusCode().value());
+
+		// An approved booking does hold one
+		bookingWriteService.save(TestFixtures.booking(user, tractor, at(12), at(14), "PAID", "APPROVED"));
+		ResponseStatusException full = assertThrows(ResponseStatusException.class, () -> bookingController.createJob(
+			Map.of("legs", List.of(leg(tractor, at(13), at(15)))), principal));
+		assertEquals(HttpStatus.BAD_REQUEST, full.getStatusCode());
+	}
+
+	private static Map<String, Object> leg(Tractor tractor, LocalDateTime startAt, LocalDateTime endAt) {
+		return Map.of("tractorId", tractor.getId(), "startAt", startAt.toString(), "endAt", endAt.toString());
+	}
+
+	private static LocalDateTime at(int hour) {
+		return DAY.withHour(hour);
+	}
+}
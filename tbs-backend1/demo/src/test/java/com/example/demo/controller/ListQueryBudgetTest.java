@@ -0,0 +1,160 @@
+package com.example.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Payment;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Query budgets for the list endpoints. Each call runs, and its result is serialized, in one
+ * session as with open-in-view; the statement count must not grow with the number of rows,
+ * so a collection or association that goes back to one SELECT per row fails the build.
+ */
+@SpringBootTest(properties = {
+	// A database of its own: this context's create-drop must not reset the tables, or the id blocks, of the shared one
+	"spring.datasource.url=jdbc:h2:mem:tbs-statistics;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+	"spring.jpa.properties.hibernate.generate_statistics=true",
+	"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListQueryBudgetTest {
+	private static final int TRACTORS = 12;
+	private static final int CUSTOMERS = 8;
+	private static final int BOOKINGS = 120;
+	// User lookup, the list itself, then one batch each for tractors, owners, customers and images
+	private static final int BUDGET = 8;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private BookingController bookingController;
+	@Autowired
+	private SuperAdminController superAdminController;
+	@Autowired
+	private TractorController tractorController;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	private User owner;
+	private User customer;
+	private User superAdmin;
+
+	@BeforeAll
+	void seed() {
+		owner = user("budget-owner@example.com", "TRACTOR_OWNER");
+		superAdmin = user("budget-admin@example.com", "SUPER_ADMIN");
+		List<User> customers = new ArrayList<>();
+		for (int i = 0; i < CUSTOMERS; i++) {
+			customers.add(user("budget-customer-" + i + "@example.com", "USER"));
+		}
+		customer = customers.get(0);
+
+		List<Tractor> tractors = new ArrayList<>();
+		for (int i = 0; i < TRACTORS; i++) {
+			Tractor tractor = TestFixtures.tractor("Budget tractor " + i, 1);
+			tractor.setOwner(owner);
+			tractor.setImageUrls(new ArrayList<>(List.of("/img/" + i + "-a.jpg", "/img/" + i + "-b.jpg")));
+			tractors.add(tractor);
+		}
+		tractorRepository.saveAll(tractors);
+
+		List<Booking> bookings = new ArrayList<>();
+		List<Payment> payments = new ArrayList<>();
+		for (int i = 0; i < BOOKINGS; i++) {
+			LocalDateTime startAt = LocalDateTime.now().plusDays(1 + i);
+			Booking booking = TestFixtures.booking(i % 2 == 0 ? customer : customers.get(i % CUSTOMERS),
+				tractors.get(i % TRACTORS), startAt, startAt.plusHours(2), "PENDING", "PENDING_APPROVAL");
+			bookings.add(booking);
+			payments.add(TestFixtures.payment(booking, 2000.0, "CASH_ON_DELIVERY", "PENDING"));
+		}
+		bookingRepository.saveAll(bookings);
+		paymentRepository.saveAll(payments);
+	}
+
+	@Test
+	void customerBookings() {
+		assertWithinBudget("GET /api/bookings", principal -> bookingController.myBookings(principal), customer);
+	}
+
+	@Test
+	void allBookings() {
+		assertWithinBudget("GET /api/bookings/all", principal -> bookingController.allBookings(principal), superAdmin);
+	}
+
+	@Test
+	void tractorOwnerBookings() {
+		assertWithinBudget("GET /api/bookings/tractor-owner", principal -> bookingController.tractorOwnerBookings(principal), owner);
+	}
+
+	@Test
+	void superAdminBookings() {
+		assertWithinBudget("GET /api/super-admin/bookings", principal -> superAdminController.getAllBookings(principal), superAdmin);
+	}
+
+	@Test
+	void ownerTractors() {
+		assertWithinBudget("GET /api/tractors/my-tractors", principal -> tractorController.myTractors(principal), owner);
+	}
+
+	private void assertWithinBudget(String endpoint, Function<Principal, Object> call, User caller) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Principal principal = caller::getEmail;
+		TransactionTemplate request = new TransactionTemplate(transactionManager);
+		request.setReadOnly(true);
+		long statements = request.execute(status -> {
+			statistics.clear();
+			Object result = call.apply(principal);
+			Object body = result instanceof ResponseEntity<?> response ? response.getBody() : result;
+			try {
+				objectMapper.writeValueAsString(body);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return statistics.getPrepareStatementCount();
+		});
+		assertTrue(statements <= BUDGET, endpoint + " used " + statements + " statements, budget is " + BUDGET);
+	}
+
+	private User user(String email, String role) {
+		return userRepository.save(TestFixtures.user(email, role));
+	}
+}
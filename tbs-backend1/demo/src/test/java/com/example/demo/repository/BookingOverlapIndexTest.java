@@ -0,0 +1,46 @@
+package com.example.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The per-tractor overlap read behind the availability sweep and the capacity recount
+ * (BookingRepository.findIndexableIntervalsOverlapping) must be served by
+ * idx_booking_tractor_window. H2 reports:
+ *
+ * <pre>
+ * FROM "PUBLIC"."BOOKINGS" "B"
+ *     /* PUBLIC.IDX_BOOKING_TRACTOR_WINDOW: START_AT &lt; TIMESTAMP '2031-01-01 12:00:00'
+ *         AND END_AT &gt; TIMESTAMP '2031-01-01 08:00:00'
+ *         AND TRACTOR_ID = CAST(1 AS BIGINT)
+ *      *&#47;
+ * WHERE ("B"."STATUS" IN('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED')) AND ...
+ * </pre>
+ *
+ * i.e. an index range on (tractor_id, start_at) with the status filters applied to the
+ * rows found. On MySQL the same query is a range scan on idx_booking_tractor_window with
+ * key_len covering tractor_id and start_at.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingOverlapIndexTest {
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void overlapReadUsesTheTractorWindowIndex() {
+		String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT b.id, b.tractor_id, b.start_at, b.end_at FROM bookings b "
+			+ "WHERE b.tractor_id = 1 AND (b.admin_status IS NULL OR b.admin_status = 'APPROVED') "
+			+ "AND b.status IN ('PENDING', 'PAID', 'DELIVERED', 'CONFIRMED') "
+			+ "AND (b.delivery_status IS NULL OR b.delivery_status <> 'RETURNED') "
+			+ "AND b.start_at < TIMESTAMP '2031-01-01 12:00:00' AND b.end_at > TIMESTAMP '2031-01-01 08:00:00' "
+			+ "ORDER BY b.start_at", String.class);
+
+		assertTrue(plan.contains("IDX_BOOKING_TRACTOR_WINDOW: START_AT < TIMESTAMP"), plan);
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+
+/**
+ * The owner feed only returns bookings on the owner's tractors, honours the status filter
+ * and walks the pages by booking id without gaps or repeats.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingRepositoryOwnerFeedTest {
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void pagesThroughOwnBookingsOnly() {
+		User owner = user("feed-owner@example.com", "TRACTOR_OWNER");
+		User otherOwner = user("feed-other-owner@example.com", "TRACTOR_OWNER");
+		User customer = user("feed-customer@example.com", "USER");
+		Tractor own = tractor(owner);
+		Tractor other = tractor(otherOwner);
+
+		List<Booking> bookings = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			bookings.add(booking(customer, own, i % 2 == 0 ? "PAID" : "PENDING"));
+			bookings.add(booking(customer, other, "PAID"));
+		}
+		bookingRepository.saveAll(bookings);
+
+		List<Long> seen = new ArrayList<>();
+		Long before = Long.MAX_VALUE;
+		List<OwnerBookingView> page;
+		do {
+			page = bookingRepository.findOwnerFeed(owner.getId(), null, null, before, PageRequest.of(0, 3));
+			for (OwnerBookingView view : page) {
+				assertEquals(own.getId(), view.getTractorId());
+				assertTrue(view.getBookingId() < before);
+				seen.add(view.getBookingId());
+			}
+			if (!page.isEmpty()) {
+				before = page.get(page.size() - 1).getBookingId();
+			}
+		} while (page.size() == 3);
+
+		assertEquals(7, seen.size());
+		assertEquals(7, bookingRepository.findByTractorOwner(owner).size());
+		assertEquals(4, bookingRepository.findOwnerFeed(owner.getId(), "PAID", null, Long.MAX_VALUE, PageRequest.of(0, 50)).size());
+	}
+
+	private User user(String email, String role) {
+		return userRepository.save(TestFixtures.user(email, role));
+	}
+
+	private Tractor tractor(User owner) {
+		Tractor tractor = TestFixtures.tractor("Feed tractor", 1);
+		tractor.setOwner(owner);
+		return tractorRepository.save(tractor);
+	}
+
+	private static Booking booking(User customer, Tractor tractor, String status) {
+		LocalDateTime startAt = LocalDateTime.now().plusDays(5);
+		return TestFixtures.booking(customer, tractor, startAt, startAt.plusHours(2), status, "PENDING_APPROVAL");
+	}
+}
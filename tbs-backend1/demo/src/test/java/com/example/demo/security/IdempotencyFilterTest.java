@@ -0,0 +1,173 @@
+package com.example.demo.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Replays, scoping and what is (not) kept, for the filter and its store
+ */
+class IdempotencyFilterTest {
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@AfterEach
+	void clearUser() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void successfulResponseIsReplayedWithoutRunningAgain() throws Exception {
+		IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyStore(100, Duration.ofHours(1)), 65536);
+
+		MockHttpServletResponse first = post(filter, "alice", "/api/bookings", "key-1", respond(201, "{\"id\":7}"));
+		MockHttpServletResponse second = post(filter, "alice", "/api/bookings", "key-1", respond(201, "{\"id\":8}"));
+
+		assertEquals(1, runs.get());
+		assertEquals(201, second.getStatus());
+		assertEquals(first.getContentAsString(), second.getContentAsString());
+		assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+	}
+
+	@Test
+	void errorResponsesAreNotStored() throws Exception {
+		IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyStore(100, Duration.ofHours(1)), 65536);
+
+		post(filter, "alice", "/api/bookings", "key-1", respond(400, "{\"error\":\"Minimum booking time is 30 minutes\"}"));
+		post(filter, "alice", "/api/bookings", "key-1", respond(409, "{\"error\":\"fully booked\"}"));
+		MockHttpServletResponse retried = post(filter, "alice", "/api/bookings", "key-1", respond(200, "{\"id\":9}"));
+
+		assertEquals(3, runs.get());
+		assertEquals(200, retried.getStatus());
+		assertNull(retried.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+	}
+
+	@Test
+	void keysAreScopedPerUserAndEndpoint() throws Exception {
+		IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyStore(100, Duration.ofHours(1)), 65536);
+
+		post(filter, "alice", "/api/bookings", "shared", respond(200, "{\"id\":1}"));
+		MockHttpServletResponse otherUser = post(filter, "bob", "/api/bookings", "shared", respond(200, "{\"id\":2}"));
+		MockHttpServletResponse otherEndpoint = post(filter, "alice", "/api/bookings/jobs", "shared", respond(200, "{\"id\":3}"));
+
+		assertEquals(3, runs.get());
+		assertEquals("{\"id\":2}", otherUser.getContentAsString());
+		assertEquals("{\"id\":3}", otherEndpoint.getContentAsString());
+	}
+
+	@Test
+	void requestStillRunningAnswers409() throws Exception {
+		IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1));
+		IdempotencyFilter filter = new IdempotencyFilter(store, 65536);
+		int[] innerStatus = new int[1];
+
+		// The chain of the first request re-enters with the same key while it is still running
+		MockHttpServletResponse outer = post(filter, "alice", "/api/bookings", "key-1", (request, response) -> {
+			runs.incrementAndGet();
+			innerStatus[0] = post(filter, "alice", "/api/bookings", "key-1", respond(200, "{}")).getStatus();
+			((HttpServletResponse) response).setStatus(200);
+		});
+
+		assertEquals(1, runs.get());
+		assertEquals(409, innerStatus[0]);
+		assertEquals(200, outer.getStatus());
+	}
+
+	@Test
+	void oversizedResponseIsNotKeptButNotRunTwice() throws Exception {
+		IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyStore(100, Duration.ofHours(1)), 16);
+
+		post(filter, "alice", "/api/bookings", "key-1", respond(200, "{\"bookings\":[1,2,3,4,5,6,7,8]}"));
+		MockHttpServletResponse replay = post(filter, "alice", "/api/bookings", "key-1", respond(200, "{}"));
+
+		assertEquals(1, runs.get());
+		assertEquals(409, replay.getStatus());
+	}
+
+	@Test
+	void cachedBodyCanBeReadAsynchronously() throws Exception {
+		IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyStore(100, Duration.ofHours(1)), 65536);
+		List<String> events = new ArrayList<>();
+
+		post(filter, "alice", "/api/bookings", "key-1", (request, response) -> {
+			ServletInputStream in = request.getInputStream();
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					events.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+				}
+
+				@Override
+				public void onAllDataRead() {
+					events.add("done");
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					events.add("error");
+				}
+			});
+		});
+
+		assertEquals(List.of("{\"tractorId\":1}", "done"), events);
+	}
+
+	@Test
+	void storeExpiresAndEvictsLeastRecentlyUsedKeys() throws Exception {
+		IdempotencyStore store = new IdempotencyStore(2, Duration.ofMillis(50));
+		IdempotencyStore.StoredResponse ok = new IdempotencyStore.StoredResponse(200, null, new byte[0]);
+		for (String key : new String[] { "a", "b" }) {
+			store.claim(key, "f");
+			store.complete(key, ok);
+		}
+		assertEquals(IdempotencyStore.Outcome.REPLAY, store.claim("a", "f").getOutcome());
+		store.claim("c", "f");
+
+		// b was least recently used, so it made room for c
+		assertEquals(2, store.size());
+		assertEquals(IdempotencyStore.Outcome.CLAIMED, store.claim("b", "f").getOutcome());
+
+		Thread.sleep(60);
+		assertEquals(IdempotencyStore.Outcome.CLAIMED, store.claim("a", "f").getOutcome());
+		assertEquals(IdempotencyStore.Outcome.MISMATCH, store.claim("a", "other").getOutcome());
+	}
+
+	private FilterChain respond(int status, String body) {
+		return (request, response) -> {
+			runs.incrementAndGet();
+			request.getInputStream().readAllBytes();
+			((HttpServletResponse) response).setStatus(status);
+			response.setContentType("application/json");
+			response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	private static MockHttpServletResponse post(IdempotencyFilter filter, String user, String path, String key,
+												FilterChain chain) throws ServletException, IOException {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, null));
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+		request.addHeader(IdempotencyFilter.HEADER, key);
+		request.setContent("{\"tractorId\":1}".getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+}
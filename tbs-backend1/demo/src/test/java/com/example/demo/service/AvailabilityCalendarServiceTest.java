@@ -0,0 +1,125 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * The sweep over booking start/end events, checked slot by slot against hand-counted peaks
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AvailabilityCalendarServiceTest {
+	private static final LocalDateTime DAY = LocalDateTime.of(2031, 3, 10, 0, 0);
+
+	@Autowired
+	private AvailabilityCalendarService availabilityCalendarService;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.findByEmail("calendar-test@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("calendar-test@example.com", "USER")));
+	}
+
+	@Test
+	void overlappingBookingsAddUpInTheSlotsTheyShare() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Calendar overlap", 2));
+		book(tractor, at(9, 0), at(11, 0));
+		book(tractor, at(10, 0), at(12, 0));
+
+		List<Map<String, Object>> slots = slots(tractor, at(8, 0), at(13, 0), Duration.ofHours(1));
+
+		assertEquals(List.of(0, 1, 2, 1, 0), bookedUnits(slots));
+		assertEquals(List.of("FREE", "PARTIAL", "FULL", "PARTIAL", "FREE"), statuses(slots));
+	}
+
+	@Test
+	void backToBackBookingsHoldOneUnitAcrossTheHandover() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Calendar handover", 1));
+		book(tractor, at(9, 0), at(10, 30));
+		book(tractor, at(10, 30), at(12, 0));
+		// Two short bookings in one slot that never overlap each other
+		book(tractor, at(13, 0), at(13, 20));
+		book(tractor, at(13, 40), at(14, 0));
+
+		List<Map<String, Object>> slots = slots(tractor, at(9, 0), at(15, 0), Duration.ofHours(1));
+
+		assertEquals(List.of(1, 1, 1, 0, 1, 0), bookedUnits(slots));
+		assertEquals(List.of(0, 0, 0, 1, 0, 1), availableUnits(slots));
+	}
+
+	@Test
+	void multiUnitTractorStaysPartialUntilEveryUnitIsTaken() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Calendar fleet", 3));
+		book(tractor, at(8, 0), at(12, 0));
+		book(tractor, at(9, 0), at(11, 0));
+		book(tractor, at(9, 30), at(10, 0));
+		// Denied and cancelled bookings hold no unit
+		bookingRepository.save(TestFixtures.booking(user, tractor, at(8, 0), at(12, 0), "PENDING", "DENIED"));
+		bookingRepository.save(TestFixtures.booking(user, tractor, at(8, 0), at(12, 0), "CANCELLED", "APPROVED"));
+
+		List<Map<String, Object>> slots = slots(tractor, at(8, 0), at(12, 0), Duration.ofMinutes(30));
+
+		assertEquals(List.of(1, 1, 2, 3, 2, 2, 1, 1), bookedUnits(slots));
+		assertEquals(List.of(2, 2, 1, 0, 1, 1, 2, 2), availableUnits(slots));
+		assertEquals("FULL", slots.get(3).get("status"));
+	}
+
+	private void book(Tractor tractor, LocalDateTime startAt, LocalDateTime endAt) {
+		bookingWriteService.save(TestFixtures.booking(user, tractor, startAt, endAt, "PAID", "APPROVED"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> slots(Tractor tractor, LocalDateTime from, LocalDateTime to, Duration step) {
+		return (List<Map<String, Object>>) availabilityCalendarService.calendar(tractor, from, to, step).get("slots");
+	}
+
+	private static LocalDateTime at(int hour, int minute) {
+		return DAY.withHour(hour).withMinute(minute);
+	}
+
+	private static List<Integer> bookedUnits(List<Map<String, Object>> slots) {
+		List<Integer> units = new ArrayList<>();
+		slots.forEach(slot -> units.add((Integer) slot.get("bookedUnits")));
+		return units;
+	}
+
+	private static List<Integer> availableUnits(List<Map<String, Object>> slots) {
+		List<Integer> units = new ArrayList<>();
+		slots.forEach(slot -> units.add((Integer) slot.get("availableUnits")));
+		return units;
+	}
+
+	private static List<String> statuses(List<Map<String, Object>> slots) {
+		List<String> statuses = new ArrayList<>();
+		slots.forEach(slot -> statuses.add((String) slot.get("status")));
+		return statuses;
+	}
+}
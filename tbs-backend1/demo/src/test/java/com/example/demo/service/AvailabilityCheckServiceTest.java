@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Bulk availability answers with the peak concurrency booking admission uses
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AvailabilityCheckServiceTest {
+	private static final LocalDateTime DAY = LocalDateTime.of(2031, 7, 14, 0, 0);
+
+	@Autowired
+	private AvailabilityCheckService availabilityCheckService;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.findByEmail("check-test@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("check-test@example.com", "USER")));
+	}
+
+	@Test
+	void bookingsThatNeverOverlapEachOtherHoldOneUnit() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Check disjoint", 2));
+		book(tractor, at(8), at(9));
+		book(tractor, at(10), at(11));
+
+		Map<String, Object> result = availabilityCheckService.check(List.of(check(tractor, at(8), at(11)))).get(0);
+
+		assertEquals(1, result.get("overlappingBookings"));
+		assertEquals(1L, result.get("availableUnits"));
+		assertEquals(true, result.get("available"));
+	}
+
+	@Test
+	void eachCheckSeesOnlyItsOwnTractorAndWindow() {
+		Tractor busy = tractorRepository.save(TestFixtures.tractor("Check busy", 1));
+		Tractor idle = tractorRepository.save(TestFixtures.tractor("Check idle", 1));
+		book(busy, at(9), at(12));
+		book(idle, at(15), at(17));
+
+		List<Map<String, Object>> results = availabilityCheckService.check(List.of(
+			check(busy, at(10), at(11)),
+			check(busy, at(12), at(14)),
+			check(idle, at(9), at(12)),
+			check(idle, at(16), at(18))));
+
+		assertEquals(List.of(false, true, true, false), results.stream().map(r -> r.get("available")).toList());
+	}
+
+	private void book(Tractor tractor, LocalDateTime startAt, LocalDateTime endAt) {
+		bookingWriteService.save(TestFixtures.booking(user, tractor, startAt, endAt, "PAID", "APPROVED"));
+	}
+
+	private static Map<String, Object> check(Tractor tractor, LocalDateTime startAt, LocalDateTime endAt) {
+		return Map.of("tractorId", tractor.getId(), "startAt", startAt.toString(), "endAt", endAt.toString());
+	}
+
+	private static LocalDateTime at(int hour) {
+		return DAY.withHour(hour);
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Hundreds of customers book and get approved for the same window of a two-unit tractor
+ * at once; exactly two of them may end up holding a unit.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingAdmissionServiceConcurrencyTest {
+	private static final int BOOKINGS = 300;
+	private static final int THREADS = 32;
+
+	@Autowired
+	private BookingAdmissionService bookingAdmissionService;
+	@Autowired
+	private CapacityLedger capacityLedger;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Test
+	void admitsNoMoreBookingsThanUnits() throws Exception {
+		User user = userRepository.save(TestFixtures.user("admission-test@example.com", "USER"));
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Mahindra 575", 2));
+
+		LocalDateTime startAt = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+		LocalDateTime endAt = startAt.plusHours(3);
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> outcomes = new ArrayList<>();
+		for (int i = 0; i < BOOKINGS; i++) {
+			outcomes.add(pool.submit(() -> {
+				start.await();
+				Booking booking = TestFixtures.booking(user, tractor, startAt, endAt, "PENDING", "PENDING_APPROVAL");
+				try {
+					Booking created = bookingAdmissionService.admit(booking);
+					created.setAdminStatus("APPROVED");
+					bookingAdmissionService.admit(created);
+					return true;
+				} catch (ResponseStatusException e) {
+					return false;
+				}
+			}));
+		}
+		start.countDown();
+
+		int admitted = 0;
+		for (Future<Boolean> outcome : outcomes) {
+			if (outcome.get(2, TimeUnit.MINUTES)) {
+				admitted++;
+			}
+		}
+		pool.shutdown();
+
+		long holding = bookingRepository.findAll().stream()
+			.filter(b -> b.getTractor().getId().equals(tractor.getId()))
+			.filter(BookingIntervalIndex::isIndexable)
+			.count();
+		assertEquals(2, admitted);
+		assertEquals(2, holding);
+		assertEquals(2, capacityLedger.peakReserved(tractor.getId(), startAt, endAt));
+	}
+}
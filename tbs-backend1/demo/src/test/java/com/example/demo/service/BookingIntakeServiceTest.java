@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Stored PENDING_INTAKE bookings taken through the workers, as BookingController's 202 path leaves them
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingIntakeServiceTest {
+	private static final LocalDateTime DAY = LocalDateTime.of(2031, 5, 19, 0, 0);
+
+	@Autowired
+	private BookingIntakeService bookingIntakeService;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.findByEmail("intake-test@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("intake-test@example.com", "USER")));
+	}
+
+	@Test
+	void acceptedBookingIsAdmittedAndSetsTheTractorDestination() throws InterruptedException {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Intake admit", 1));
+		Booking booking = TestFixtures.booking(user, tractor, at(9), at(11), BookingIntakeService.PENDING_INTAKE, "PENDING_APPROVAL");
+		booking.setDeliveryLatitude(18.5);
+		booking.setDeliveryLongitude(73.8);
+		booking.setDeliveryAddress("Intake farm");
+		Long id = bookingWriteService.save(booking).getId();
+		assertFalse(bookingRepository.findByUser(user).stream().anyMatch(b -> b.getId().equals(id)));
+
+		bookingIntakeService.submit(id);
+		Booking done = awaitIntake(id);
+
+		assertEquals("PENDING", done.getStatus());
+		assertTrue(bookingRepository.findByUser(user).stream().anyMatch(b -> b.getId().equals(id)));
+		Tractor reloaded = tractorRepository.findById(tractor.getId()).orElseThrow();
+		assertEquals(18.5, reloaded.getDestinationLatitude());
+		assertEquals("Intake farm", reloaded.getDestinationAddress());
+	}
+
+	@Test
+	void acceptedBookingForAFullTractorIsRejected() throws InterruptedException {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Intake full", 1));
+		bookingWriteService.save(TestFixtures.booking(user, tractor, at(8), at(12), "PAID", "APPROVED"));
+		Long id = bookingWriteService.save(TestFixtures.booking(user, tractor, at(9), at(11),
+			BookingIntakeService.PENDING_INTAKE, "PENDING_APPROVAL")).getId();
+
+		bookingIntakeService.submit(id);
+		Booking done = awaitIntake(id);
+
+		assertEquals(BookingIntakeService.INTAKE_REJECTED, done.getStatus());
+		assertNotNull(done.getIntakeError());
+		assertFalse(bookingRepository.findByUser(user).stream().anyMatch(b -> b.getId().equals(id)));
+	}
+
+	@Test
+	void sweeperRequeuesBookingsThatWereNeverSubmitted() throws InterruptedException {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Intake sweep", 1));
+		// As left by a full queue or a restart: stored, but no worker has it
+		Long id = bookingWriteService.save(TestFixtures.booking(user, tractor, at(14), at(16),
+			BookingIntakeService.PENDING_INTAKE, "PENDING_APPROVAL")).getId();
+		assertTrue(bookingRepository.findPendingIntakeIds().contains(id));
+
+		bookingIntakeService.sweep();
+
+		assertEquals("PENDING", awaitIntake(id).getStatus());
+		assertFalse(bookingRepository.findPendingIntakeIds().contains(id));
+	}
+
+	private Booking awaitIntake(Long id) throws InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			Booking booking = bookingRepository.findById(id).orElseThrow();
+			if (!BookingIntakeService.PENDING_INTAKE.equals(booking.getStatus())) {
+				return booking;
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("Booking " + id + " is still waiting for intake");
+	}
+
+	private static LocalDateTime at(int hour) {
+		return DAY.withHour(hour);
+	}
+}
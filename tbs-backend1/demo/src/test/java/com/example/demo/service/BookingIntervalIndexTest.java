@@ -0,0 +1,57 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Deleted bookings must stop occupying the tractor in the interval index, whether they are
+ * deleted directly or by the cascade from their customer's deletion.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingIntervalIndexTest {
+	@Autowired
+	private BookingIntervalIndex bookingIntervalIndex;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void deletedBookingsLeaveTheIndex() {
+		User kept = userRepository.save(TestFixtures.user("index-kept@example.com", "USER"));
+		User leaving = userRepository.save(TestFixtures.user("index-leaving@example.com", "USER"));
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Eicher 380", 2));
+		LocalDateTime startAt = LocalDateTime.now().plusDays(4).withNano(0);
+		LocalDateTime endAt = startAt.plusHours(3);
+
+		Booking direct = bookingWriteService.save(TestFixtures.booking(kept, tractor, startAt, endAt, "PENDING", "APPROVED"));
+		bookingWriteService.save(TestFixtures.booking(leaving, tractor, startAt, endAt, "PENDING", "APPROVED"));
+		assertEquals(2, bookingIntervalIndex.countOverlapping(tractor.getId(), startAt, endAt));
+
+		bookingRepository.deleteById(direct.getId());
+		assertEquals(1, bookingIntervalIndex.countOverlapping(tractor.getId(), startAt, endAt));
+
+		userRepository.deleteById(leaving.getId());
+		assertEquals(0, bookingIntervalIndex.countOverlapping(tractor.getId(), startAt, endAt));
+		assertEquals(true, bookingIntervalIndex.checkConsistency().get("consistent"));
+	}
+}
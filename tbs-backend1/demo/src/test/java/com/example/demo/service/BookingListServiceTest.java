@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Keyset pages sorted by a non-unique column visit every booking exactly once, and only
+ * the requested fields come back.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingListServiceTest {
+	private static final int BOOKINGS = 23;
+
+	@Autowired
+	private BookingListService bookingListService;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void pagesByStartTimeWithoutGapsOrRepeats() {
+		User user = userRepository.save(TestFixtures.user("list-test@example.com", "USER"));
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Swaraj 744", 1));
+
+		// Only three distinct start times, so most rows tie on the sort key
+		LocalDateTime base = LocalDateTime.now().plusDays(10).withNano(0);
+		List<Booking> bookings = new ArrayList<>();
+		for (int i = 0; i < BOOKINGS; i++) {
+			bookings.add(TestFixtures.booking(user, tractor, base.plusHours(i % 3), base.plusHours(i % 3 + 1),
+				"PENDING", "PENDING_APPROVAL"));
+		}
+		bookingRepository.saveAll(bookings);
+
+		Set<Object> seen = new HashSet<>();
+		LocalDateTime previous = null;
+		String cursor = null;
+		do {
+			Map<String, Object> page = bookingListService.page(user.getId(), null, null, "id,startAt,tractorName",
+				"startAt", "asc", cursor, 5);
+			for (Map<String, Object> item : (List<Map<String, Object>>) page.get("items")) {
+				assertEquals(Set.of("id", "startAt", "tractorName"), item.keySet());
+				LocalDateTime startAt = (LocalDateTime) item.get("startAt");
+				if (previous != null) {
+					assertTrue(!startAt.isBefore(previous));
+				}
+				previous = startAt;
+				assertTrue(seen.add(item.get("id")));
+			}
+			cursor = (String) page.get("nextCursor");
+		} while (cursor != null);
+
+		assertEquals(BOOKINGS, seen.size());
+		assertNull(bookingListService.page(user.getId(), "PAID", null, null, null, null, null, 5).get("nextCursor"));
+		assertThrows(IllegalArgumentException.class,
+			() -> bookingListService.page(null, null, null, "passwordHash", null, null, null, 5));
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.BookingTransitionService.Transition;
+
+/**
+ * Admins approve and deny the same booking at once, each from the state they read; only
+ * one transition may land and the others must get 409. Transitions are conditional bulk
+ * UPDATEs, so the catalog cache must also be dropped by hand.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingTransitionServiceTest {
+	private static final int REQUESTS = 16;
+
+	@Autowired
+	private BookingTransitionService bookingTransitionService;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private CapacityLedger capacityLedger;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private TractorCatalogCache tractorCatalogCache;
+
+	@Test
+	void appliesOnlyOneOfConcurrentTransitions() throws Exception {
+		User user = userRepository.save(TestFixtures.user("transition-test@example.com", "USER"));
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Sonalika DI 745", 1));
+
+		LocalDateTime startAt = LocalDateTime.now().plusDays(3).withHour(8).withMinute(0).withSecond(0).withNano(0);
+		LocalDateTime endAt = startAt.plusHours(4);
+		Long bookingId = bookingWriteService.save(TestFixtures.booking(user, tractor, startAt, endAt,
+			"PENDING", "PENDING_APPROVAL")).getId();
+
+		// Every request works from its own copy of the same PENDING_APPROVAL row
+		List<Booking> copies = new ArrayList<>();
+		for (int i = 0; i < REQUESTS; i++) {
+			copies.add(bookingRepository.findWithPaymentsById(bookingId).orElseThrow());
+		}
+		assertEquals("Booking must be paid before marking as delivered",
+			BookingTransitionService.rejection(copies.get(0), Transition.MARK_DELIVERED));
+		assertNull(BookingTransitionService.rejection(copies.get(0), Transition.APPROVE));
+
+		ExecutorService pool = Executors.newFixedThreadPool(REQUESTS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<HttpStatus>> outcomes = new ArrayList<>();
+		for (int i = 0; i < REQUESTS; i++) {
+			Booking copy = copies.get(i);
+			Transition transition = i % 2 == 0 ? Transition.APPROVE : Transition.DENY;
+			outcomes.add(pool.submit(() -> {
+				start.await();
+				try {
+					bookingTransitionService.apply(copy, transition, Map.of());
+					return HttpStatus.OK;
+				} catch (ResponseStatusException e) {
+					return HttpStatus.valueOf(e.getStatusCode().value());
+				}
+			}));
+		}
+		start.countDown();
+
+		int applied = 0;
+		int conflicts = 0;
+		for (Future<HttpStatus> outcome : outcomes) {
+			HttpStatus status = outcome.get(1, TimeUnit.MINUTES);
+			if (status == HttpStatus.OK) {
+				applied++;
+			} else if (status == HttpStatus.CONFLICT) {
+				conflicts++;
+			}
+		}
+		pool.shutdown();
+
+		Booking result = bookingRepository.findById(bookingId).orElseThrow();
+		assertEquals(1, applied);
+		assertEquals(REQUESTS - 1, conflicts);
+		assertEquals("APPROVED".equals(result.getAdminStatus()) ? 1 : 0,
+			capacityLedger.peakReserved(tractor.getId(), startAt, endAt));
+	}
+
+	@Test
+	void approvalChangesTheCatalogEtag() {
+		User user = userRepository.findByEmail("transition-catalog@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("transition-catalog@example.com", "USER")));
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Sonalika DI 750", 1));
+		LocalDateTime now = LocalDateTime.now();
+		// Under way now, so approving it makes the tractor unavailable in the catalog
+		Booking pending = bookingWriteService.save(TestFixtures.booking(user, tractor, now.minusHours(1), now.plusHours(3),
+			"PENDING", "PENDING_APPROVAL"));
+		String before = tractorCatalogCache.get().getEtag();
+
+		bookingTransitionService.apply(bookingRepository.findWithPaymentsById(pending.getId()).orElseThrow(),
+			Transition.APPROVE, Map.of());
+
+		assertNotEquals(before, tractorCatalogCache.get().getEtag());
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * One-hour buckets against bookings that start and end inside them
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CapacityLedgerTest {
+	private static final LocalDateTime DAY = LocalDateTime.of(2031, 4, 14, 0, 0);
+
+	@Autowired
+	private CapacityLedger capacityLedger;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.findByEmail("ledger-test@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("ledger-test@example.com", "USER")));
+	}
+
+	@Test
+	void backToBackBookingsShareAnEdgeBucketWithoutConflict() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Ledger handover", 1));
+		book(tractor, at(9, 0), at(10, 30));
+		book(tractor, at(10, 30), at(12, 0));
+
+		// Both count in the 10:00 bucket, but at most one holds the unit at any instant
+		assertEquals(2, capacityLedger.peakReserved(tractor.getId(), at(10, 0), at(11, 0)));
+		assertEquals(1, capacityLedger.unitsInUse(tractor.getId(), at(10, 0), at(11, 0), 1, null));
+
+		// A booking that really overlaps them is still refused
+		Tractor reloaded = tractorRepository.findById(tractor.getId()).orElseThrow();
+		ResponseStatusException overlap = assertThrows(ResponseStatusException.class,
+			() -> book(reloaded, at(10, 15), at(10, 45)));
+		assertEquals(HttpStatus.CONFLICT, overlap.getStatusCode());
+		assertEquals(2, bookingRepository.findIndexableIntervalsOverlapping(tractor.getId(), at(9, 0), at(12, 0)).size());
+	}
+
+	@Test
+	void bookingsInsideOneBucketOnlyConflictWhenTheyOverlap() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Ledger short hires", 1));
+		book(tractor, at(14, 0), at(14, 20));
+		book(tractor, at(14, 20), at(14, 40));
+		book(tractor, at(14, 40), at(15, 0));
+
+		assertEquals(3, capacityLedger.peakReserved(tractor.getId(), at(14, 0), at(15, 0)));
+		assertThrows(ResponseStatusException.class, () -> book(tractor, at(14, 30), at(14, 50)));
+	}
+
+	@Test
+	void startupRebuildLeavesAPopulatedLedgerAlone() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Ledger rebuild", 2));
+		book(tractor, at(8, 0), at(9, 0));
+		// Written around the ledger, as another instance's row would look before it commits its bucket
+		Booking unrecorded = bookingRepository.save(TestFixtures.booking(user, tractor, at(8, 0), at(9, 0), "PAID", "APPROVED"));
+		try {
+			capacityLedger.rebuild();
+
+			assertEquals(1, capacityLedger.peakReserved(tractor.getId(), at(8, 0), at(9, 0)));
+		} finally {
+			bookingRepository.delete(unrecorded);
+		}
+	}
+
+	private Booking book(Tractor tractor, LocalDateTime startAt, LocalDateTime endAt) {
+		return bookingWriteService.save(TestFixtures.booking(user, tractor, startAt, endAt, "PAID", "APPROVED"));
+	}
+
+	private static LocalDateTime at(int hour, int minute) {
+		return DAY.withHour(hour).withMinute(minute);
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Payment;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the JDBC statements of multi-row write flows now that ids are pooled and inserts
+ * and updates are batched. With IDENTITY ids every inserted row was its own statement, so
+ * each flow is held to fewer statements than it writes rows.
+ */
+@SpringBootTest(properties = {
+	// A database of its own: this context's create-drop must not reset the tables, or the id blocks, of the shared one
+	"spring.datasource.url=jdbc:h2:mem:tbs-statistics;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+	"spring.jpa.properties.hibernate.generate_statistics=true",
+	"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+class PooledIdBatchingBenchmarkTest {
+	private static final int IMPORTED_TRACTORS = 200;
+	private static final int PAYMENTS = 20;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private PaymentRepository paymentRepository;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+
+	@Test
+	void multiRowFlowsAreWrittenInBatches() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+		// Bulk import: many tractors saved in one transaction
+		statistics.clear();
+		transaction.executeWithoutResult(status -> {
+			List<Tractor> tractors = new ArrayList<>();
+			for (int i = 0; i < IMPORTED_TRACTORS; i++) {
+				tractors.add(TestFixtures.tractor("Imported " + i, 1));
+			}
+			tractorRepository.saveAll(tractors);
+		});
+		long importStatements = statistics.getPrepareStatementCount();
+		assertTrue(importStatements < IMPORTED_TRACTORS / 4, "bulk import should be batched: " + importStatements);
+
+		// A COD booking with several pending payments, inserted together
+		User user = userRepository.save(TestFixtures.user("batching-test@example.com", "USER"));
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Batching", 1));
+
+		statistics.clear();
+		Long bookingId = transaction.execute(status -> {
+			LocalDateTime startAt = LocalDateTime.now().plusDays(2);
+			Booking saved = bookingWriteService.save(TestFixtures.booking(user, tractor, startAt, startAt.plusHours(4),
+				"DELIVERED", "APPROVED"));
+			List<Payment> payments = new ArrayList<>();
+			for (int i = 0; i < PAYMENTS; i++) {
+				payments.add(TestFixtures.payment(saved, 240.0, "CASH_ON_DELIVERY", "PENDING"));
+			}
+			paymentRepository.saveAll(payments);
+			return saved.getId();
+		});
+		long insertStatements = statistics.getPrepareStatementCount();
+		assertTrue(insertStatements < PAYMENTS, "payment inserts should be batched: " + insertStatements);
+
+		// mark-completed: settle every payment and complete the booking in one transaction
+		statistics.clear();
+		transaction.executeWithoutResult(status -> {
+			Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+			List<Payment> settled = new ArrayList<>(booking.getPayments());
+			settled.forEach(p -> p.setStatus("SUCCESS"));
+			booking.setStatus("COMPLETED");
+			bookingWriteService.save(booking, settled);
+		});
+		long completeStatements = statistics.getPrepareStatementCount();
+		assertTrue(completeStatements < PAYMENTS, "payment updates should be batched: " + completeStatements);
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The catalog ETag follows its content: a reload of unchanged data keeps the tag, so
+ * polling clients keep getting 304s, and a visible change issues a new one.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TractorCatalogCacheTest {
+	@Autowired
+	private TractorCatalogCache tractorCatalogCache;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void etagIsStableAcrossReloadsOfTheSameContent() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Kubota L4508", 1));
+		String before = tractorCatalogCache.get().getEtag();
+
+		tractorCatalogCache.invalidate();
+		long misses = tractorCatalogCache.getMisses();
+		String reloaded = tractorCatalogCache.get().getEtag();
+		assertEquals(misses + 1, tractorCatalogCache.getMisses());
+		assertEquals(before, reloaded);
+		assertTrue(tractorCatalogCache.get().matches(before));
+
+		tractor.setHourlyRate(1250.0);
+		tractorRepository.save(tractor);
+		assertNotEquals(before, tractorCatalogCache.get().getEtag());
+	}
+
+	@Test
+	void catalogCarriesOnlyThePublicOwnerFields() throws JsonProcessingException {
+		User owner = userRepository.findByEmail("catalog-owner@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("catalog-owner@example.com", "TRACTOR_OWNER")));
+		Tractor tractor = TestFixtures.tractor("Catalog owner", 1);
+		tractor.setOwner(owner);
+		tractorRepository.save(tractor);
+
+		String json = objectMapper.writeValueAsString(tractorCatalogCache.get().getTractors());
+
+		assertTrue(json.contains("\"ownerId\":" + owner.getId()));
+		assertFalse(json.contains("passwordHash"));
+		assertFalse(json.contains("\"email\""));
+		assertFalse(json.contains("citizenshipImageUrl"));
+	}
+}
@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TractorSearchServiceTest {
+	@Autowired
+	private TractorSearchService tractorSearchService;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void priceAndRatingPagesAreReadThroughTheirIndexes() {
+		// The shape of a second page sorted by price or rating, descending
+		Map<String, String> indexes = Map.of("hourly_rate", "IDX_TRACTOR_APPROVAL_RATE", "rating", "IDX_TRACTOR_APPROVAL_RATING");
+		indexes.forEach((column, index) -> {
+			String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT t.id FROM tractors t WHERE t.approval_status = 'APPROVED' "
+				+ "AND (t." + column + " < 1000 OR (t." + column + " = 1000 AND t.id < 50)) "
+				+ "ORDER BY t." + column + " DESC, t.id DESC LIMIT 21", String.class);
+			assertTrue(plan.contains(index + ": APPROVAL_STATUS = 'APPROVED'"), plan);
+		});
+	}
+
+	@Test
+	void tractorsSavedWithoutSearchColumnsGetTheirDefaults() {
+		Tractor legacy = TestFixtures.tractor("Unrated 275", 1);
+		legacy.setApprovalStatus(null);
+		legacy.setHourlyRate(null);
+		legacy.setRating(null);
+		Tractor saved = tractorRepository.findById(tractorRepository.save(legacy).getId()).orElseThrow();
+
+		assertEquals("APPROVED", saved.getApprovalStatus());
+		assertEquals(0.0, saved.getHourlyRate());
+		assertEquals(0.0, saved.getRating());
+	}
+
+	@Test
+	void defaultSearchIncludesTractorsWithoutAnApprovalStatus() {
+		Tractor legacy = TestFixtures.tractor("Legacy 275", 1);
+		legacy.setCategory("search-legacy");
+		legacy.setApprovalStatus(null);
+		Tractor pending = TestFixtures.tractor("Pending 275", 1);
+		pending.setCategory("search-legacy");
+		pending.setApprovalStatus("PENDING");
+		Long legacyId = tractorRepository.save(legacy).getId();
+		tractorRepository.save(pending);
+
+		TractorSearchService.Criteria criteria = new TractorSearchService.Criteria();
+		criteria.category = "search-legacy";
+		List<Long> ids = ids(tractorSearchService.search(criteria));
+
+		assertEquals(List.of(legacyId), ids);
+	}
+
+	@Test
+	void distanceCursorPagesThroughEquidistantTractorsExactlyOnce() {
+		// Points on a ring around the origin: the computed distances tie or differ only in the last bits
+		double[][] offsets = { {0.01, 0}, {-0.01, 0}, {0, 0.01}, {0, -0.01}, {0.007071, 0.007071},
+			{-0.007071, 0.007071}, {0.007071, -0.007071}, {-0.007071, -0.007071} };
+		List<Long> saved = new ArrayList<>();
+		for (double[] offset : offsets) {
+			Tractor tractor = TestFixtures.tractor("Ring " + saved.size(), 1);
+			tractor.setCategory("search-ring");
+			tractor.setLatitude(18.52 + offset[0]);
+			tractor.setLongitude(73.85 + offset[1]);
+			saved.add(tractorRepository.save(tractor).getId());
+		}
+
+		TractorSearchService.Criteria criteria = new TractorSearchService.Criteria();
+		criteria.category = "search-ring";
+		criteria.sortBy = TractorSearchService.SortBy.DISTANCE;
+		criteria.latitude = 18.52;
+		criteria.longitude = 73.85;
+		criteria.size = 3;
+
+		List<Long> seen = new ArrayList<>();
+		int pages = 0;
+		do {
+			Map<String, Object> page = tractorSearchService.search(criteria);
+			seen.addAll(ids(page));
+			criteria.cursor = (String) page.get("nextCursor");
+			pages++;
+		} while (criteria.cursor != null && pages < 10);
+
+		assertEquals(saved.size(), seen.size());
+		assertTrue(new HashSet<>(seen).containsAll(saved));
+	}
+
+	@Test
+	void availableFilterIgnoresBookingsThatHaveEnded() {
+		User user = userRepository.save(TestFixtures.user("search-available@example.com", "USER"));
+		Tractor ended = TestFixtures.tractor("Ended 744", 1);
+		ended.setCategory("search-available");
+		Tractor busy = TestFixtures.tractor("Busy 744", 1);
+		busy.setCategory("search-available");
+		ended = tractorRepository.save(ended);
+		busy = tractorRepository.save(busy);
+		LocalDateTime now = LocalDateTime.now();
+		// Paid but never returned: still counted in tractor_stats.activeBookings
+		bookingWriteService.save(TestFixtures.booking(user, ended, now.minusDays(2), now.minusDays(1), "PAID", "APPROVED"));
+		bookingWriteService.save(TestFixtures.booking(user, busy, now.minusHours(1), now.plusHours(3), "PAID", "APPROVED"));
+
+		TractorSearchService.Criteria criteria = new TractorSearchService.Criteria();
+		criteria.category = "search-available";
+		criteria.available = true;
+		assertEquals(List.of(ended.getId()), ids(tractorSearchService.search(criteria)));
+
+		criteria.available = false;
+		assertEquals(List.of(busy.getId()), ids(tractorSearchService.search(criteria)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Long> ids(Map<String, Object> page) {
+		List<Long> ids = new ArrayList<>();
+		for (Map<String, Object> item : (List<Map<String, Object>>) page.get("items")) {
+			ids.add((Long) item.get("id"));
+		}
+		return ids;
+	}
+}
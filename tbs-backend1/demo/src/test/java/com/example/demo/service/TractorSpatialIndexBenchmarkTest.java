@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.util.TrackingMapper;
+
+/**
+ * Checks the grid against a brute-force haversine scan, and that it prunes most candidates
+ */
+class TractorSpatialIndexBenchmarkTest {
+	private static final int TRACTORS = 20_000;
+	private static final int QUERIES = 500;
+
+	@Test
+	void matchesBruteForceWhileCheckingFewCandidates() {
+		Random random = new Random(42);
+		TractorSpatialIndex index = new TractorSpatialIndex(null);
+		double[][] points = new double[TRACTORS][];
+		// Spread over Nepal, where the deployment runs
+		for (int i = 0; i < TRACTORS; i++) {
+			points[i] = new double[] { 26.4 + random.nextDouble() * 3.9, 80.1 + random.nextDouble() * 8.1 };
+			index.put((long) i, points[i][0], points[i][1]);
+		}
+		double[][] queries = new double[QUERIES][];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = new double[] { 26.4 + random.nextDouble() * 3.9, 80.1 + random.nextDouble() * 8.1 };
+		}
+
+		for (double[] q : queries) {
+			List<TractorSpatialIndex.Hit> expectedRadius = bruteForce(points, q, 25, Integer.MAX_VALUE);
+			List<TractorSpatialIndex.Hit> expectedNearest = bruteForce(points, q, 100, 10);
+			List<TractorSpatialIndex.Hit> radius = index.withinRadius(q[0], q[1], 25, Integer.MAX_VALUE);
+			List<TractorSpatialIndex.Hit> nearest = index.nearest(q[0], q[1], 10, 100);
+
+			assertEquals(ids(expectedRadius), ids(radius));
+			assertEquals(ids(expectedNearest), ids(nearest));
+		}
+
+		// Brute force computes 2 * TRACTORS distances per query; the grid should need a few percent of that
+		long bruteForceChecks = 2L * TRACTORS * QUERIES;
+		assertTrue(index.getDistanceChecks() < bruteForceChecks / 20,
+			"grid computed " + index.getDistanceChecks() + " distances, brute force " + bruteForceChecks);
+	}
+
+	private static List<TractorSpatialIndex.Hit> bruteForce(double[][] points, double[] q, double radiusKm, int limit) {
+		List<TractorSpatialIndex.Hit> hits = new ArrayList<>();
+		for (int i = 0; i < points.length; i++) {
+			double d = TrackingMapper.computeDistanceKm(q[0], q[1], points[i][0], points[i][1]);
+			if (d <= radiusKm) {
+				hits.add(new TractorSpatialIndex.Hit((long) i, d));
+			}
+		}
+		hits.sort(Comparator.comparingDouble(TractorSpatialIndex.Hit::getDistanceKm));
+		return hits.size() > limit ? hits.subList(0, limit) : hits;
+	}
+
+	private static List<Long> ids(List<TractorSpatialIndex.Hit> hits) {
+		return hits.stream().map(TractorSpatialIndex.Hit::getTractorId).collect(Collectors.toList());
+	}
+}
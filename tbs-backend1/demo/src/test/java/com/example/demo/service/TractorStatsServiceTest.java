@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Tractor;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TractorRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Bookings in async intake stay out of tractor_stats until admitted, on the write path and in the reconciler alike
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TractorStatsServiceTest {
+	private static final LocalDateTime DAY = LocalDateTime.of(2031, 8, 4, 0, 0);
+
+	@Autowired
+	private TractorStatsService tractorStatsService;
+	@Autowired
+	private BookingWriteService bookingWriteService;
+	@Autowired
+	private BookingRepository bookingRepository;
+	@Autowired
+	private TractorRepository tractorRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.findByEmail("stats-test@example.com")
+			.orElseGet(() -> userRepository.save(TestFixtures.user("stats-test@example.com", "USER")));
+	}
+
+	@Test
+	void intakeBookingsAreCountedOnlyOnceAdmitted() {
+		Tractor tractor = tractorRepository.save(TestFixtures.tractor("Stats intake", 1));
+		Long admittedId = bookingWriteService.save(TestFixtures.booking(user, tractor, at(8), at(10),
+			BookingIntakeService.PENDING_INTAKE, "PENDING_APPROVAL")).getId();
+		Booking refused = bookingWriteService.save(TestFixtures.booking(user, tractor, at(11), at(13),
+			BookingIntakeService.PENDING_INTAKE, "PENDING_APPROVAL"));
+		assertEquals(0L, totalBookings(tractor));
+
+		Booking admitted = bookingRepository.findById(admittedId).orElseThrow();
+		admitted.setStatus("PENDING");
+		bookingWriteService.save(admitted);
+		refused.setStatus(BookingIntakeService.INTAKE_REJECTED);
+		bookingWriteService.save(refused);
+		assertEquals(1L, totalBookings(tractor));
+
+		// The reconciler counts the same way, so it finds nothing to repair here
+		tractorStatsService.reconcile();
+		assertEquals(1L, totalBookings(tractor));
+	}
+
+	private long totalBookings(Tractor tractor) {
+		Long total = tractorStatsService.forTractor(tractor.getId()).getTotalBookings();
+		return total != null ? total : 0L;
+	}
+
+	private static LocalDateTime at(int hour) {
+		return DAY.withHour(hour);
+	}
+}
@@ -0,0 +1,169 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks A* over the in-process road graph against a plain Dijkstra.
+ */
+class GraphRoutingProviderTest {
+	private static final int GRID = 150;
+	private static final double SPACING_DEGREES = 0.005;
+	private static final int QUERIES = 300;
+
+	@Test
+	void loadsFileAndRespectsOneWayRoads(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("roads.txt");
+		Files.writeString(file, String.join("\n",
+			"# three villages on a one-way loop, plus a spur",
+			"v 27.700 85.300",
+			"v 27.700 85.310",
+			"v 27.710 85.310",
+			"v 27.710 85.300   # spur end",
+			"a 0 1",
+			"a 1 2",
+			"a 2 0",
+			"e 0 3",
+			""));
+		GraphRoutingProvider graph = GraphRoutingProvider.load(file);
+		assertEquals(4, graph.getNodeCount());
+		assertEquals(5, graph.getEdgeCount());
+
+		// 0 -> 2 goes round through 1; 2 -> 0 is direct
+		Route forward = graph.route(27.700, 85.300, 27.710, 85.310).join();
+		assertEquals(3, forward.size());
+		assertEquals(27.700, forward.getLatitudes()[1]);
+		assertEquals(85.310, forward.getLongitudes()[1]);
+		Route back = graph.findRoute(27.710, 85.310, 27.700, 85.300);
+		assertEquals(2, back.size());
+
+		// Off the map
+		assertNull(graph.findRoute(28.5, 85.3, 27.7, 85.3));
+	}
+
+	@Test
+	void matchesDijkstra() {
+		Random random = new Random(7);
+		int nodes = GRID * GRID;
+		double[] lats = new double[nodes];
+		double[] lngs = new double[nodes];
+		for (int row = 0; row < GRID; row++) {
+			for (int col = 0; col < GRID; col++) {
+				int node = row * GRID + col;
+				lats[node] = 27.5 + row * SPACING_DEGREES + (random.nextDouble() - 0.5) * SPACING_DEGREES * 0.4;
+				lngs[node] = 84.0 + col * SPACING_DEGREES + (random.nextDouble() - 0.5) * SPACING_DEGREES * 0.4;
+			}
+		}
+		int[] from = new int[nodes * 4];
+		int[] to = new int[nodes * 4];
+		int edges = 0;
+		for (int node = 0; node < nodes; node++) {
+			int[] neighbours = { node % GRID < GRID - 1 ? node + 1 : -1, node + GRID < nodes ? node + GRID : -1 };
+			for (int next : neighbours) {
+				double roll = random.nextDouble();
+				if (next < 0 || roll < 0.15) {
+					continue;
+				}
+				from[edges] = node;
+				to[edges++] = next;
+				if (roll >= 0.2) {
+					from[edges] = next;
+					to[edges++] = node;
+				}
+			}
+		}
+		GraphRoutingProvider graph = new GraphRoutingProvider(lats, lngs, from, to, edges);
+		List<List<int[]>> adjacency = new ArrayList<>();
+		for (int node = 0; node < nodes; node++) {
+			adjacency.add(new ArrayList<>());
+		}
+		for (int i = 0; i < edges; i++) {
+			adjacency.get(from[i]).add(new int[] { to[i] });
+		}
+
+		int routed = 0;
+		for (int q = 0; q < QUERIES; q++) {
+			int a = random.nextInt(nodes);
+			int b = random.nextInt(nodes);
+			double fromLat = lats[a] + 0.0003;
+			double fromLng = lngs[a] - 0.0002;
+			double toLat = lats[b] - 0.0002;
+			double toLng = lngs[b];
+
+			int source = nearestByScan(lats, lngs, fromLat, fromLng);
+			int target = nearestByScan(lats, lngs, toLat, toLng);
+			double meters = dijkstra(adjacency, lats, lngs, source, target);
+			Route route = graph.findRoute(fromLat, fromLng, toLat, toLng);
+
+			assertEquals(source, graph.nearestNode(fromLat, fromLng));
+			assertEquals(target, graph.nearestNode(toLat, toLng));
+			if (Double.isInfinite(meters)) {
+				assertNull(route);
+				continue;
+			}
+			routed++;
+			assertNotNull(route);
+			double expectedKm = meters / 1000.0
+				+ TrackingMapper.computeDistanceKm(fromLat, fromLng, lats[source], lngs[source])
+				+ TrackingMapper.computeDistanceKm(lats[target], lngs[target], toLat, toLng);
+			assertEquals(expectedKm, route.getDistanceKm(), 1e-6);
+		}
+
+		// Most of the grid is one connected component, so most queries must have exercised a real route
+		assertTrue(routed > QUERIES / 2, routed + " of " + QUERIES + " queries routed");
+	}
+
+	private static int nearestByScan(double[] lats, double[] lngs, double lat, double lng) {
+		int best = -1;
+		double bestKm = Double.MAX_VALUE;
+		for (int node = 0; node < lats.length; node++) {
+			double km = TrackingMapper.computeDistanceKm(lat, lng, lats[node], lngs[node]);
+			if (km < bestKm) {
+				bestKm = km;
+				best = node;
+			}
+		}
+		return best;
+	}
+
+	private static double dijkstra(List<List<int[]>> adjacency, double[] lats, double[] lngs, int source, int target) {
+		double[] distance = new double[lats.length];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		distance[source] = 0;
+		PriorityQueue<double[]> queue = new PriorityQueue<>((x, y) -> Double.compare(x[0], y[0]));
+		queue.add(new double[] { 0, source });
+		while (!queue.isEmpty()) {
+			double[] head = queue.poll();
+			int node = (int) head[1];
+			if (head[0] > distance[node]) {
+				continue;
+			}
+			if (node == target) {
+				break;
+			}
+			for (int[] edge : adjacency.get(node)) {
+				double candidate = distance[node]
+					+ TrackingMapper.computeDistanceKm(lats[node], lngs[node], lats[edge[0]], lngs[edge[0]]) * 1000.0;
+				if (candidate < distance[edge[0]]) {
+					distance[edge[0]] = candidate;
+					queue.add(new double[] { candidate, edge[0] });
+				}
+			}
+		}
+		return distance[target];
+	}
+}
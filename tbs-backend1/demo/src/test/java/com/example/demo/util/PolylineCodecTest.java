@@ -0,0 +1,55 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Round-trips the polyline encoding and checks it is at most a fifth of the point-array payload.
+ */
+class PolylineCodecTest {
+
+	@Test
+	void matchesReferenceEncoding() {
+		double[] lats = { 38.5, 40.7, 43.252 };
+		double[] lngs = { -120.2, -120.95, -126.453 };
+		String encoded = PolylineCodec.encode(lats, lngs);
+		assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", encoded);
+
+		double[][] decoded = PolylineCodec.decode(encoded);
+		assertArrayEquals(lats, decoded[0], 1e-9);
+		assertArrayEquals(lngs, decoded[1], 1e-9);
+		assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("_p~iF~ps|U_"));
+	}
+
+	@Test
+	void encodedRouteIsAFractionOfThePointArray() throws Exception {
+		Random random = new Random(3);
+		int points = 3000;
+		double[] lats = new double[points];
+		double[] lngs = new double[points];
+		lats[0] = 27.7;
+		lngs[0] = 85.3;
+		for (int i = 1; i < points; i++) {
+			lats[i] = lats[i - 1] + (random.nextDouble() - 0.3) * 0.0005;
+			lngs[i] = lngs[i - 1] + (random.nextDouble() - 0.3) * 0.0005;
+		}
+		Route route = new Route(lats, lngs, 0);
+		ObjectMapper objectMapper = new ObjectMapper();
+		int pointBytes = objectMapper.writeValueAsString(route.getPoints()).length();
+		int polylineBytes = objectMapper.writeValueAsString(route.getPolyline()).length();
+
+		assertTrue(polylineBytes * 5 < pointBytes,
+			"polyline is " + polylineBytes + " bytes against " + pointBytes + " bytes as points");
+		double[][] decoded = PolylineCodec.decode(route.getPolyline());
+		assertArrayEquals(lats, decoded[0], 0.6e-5);
+		assertArrayEquals(lngs, decoded[1], 0.6e-5);
+	}
+}
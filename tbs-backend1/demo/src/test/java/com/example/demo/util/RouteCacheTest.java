@@ -0,0 +1,50 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Polls of a tractor that has moved a few metres must reuse the cached route, while the
+ * cache stays bounded and forgets routes after their ttl.
+ */
+class RouteCacheTest {
+
+	@Test
+	void nearbyPositionsShareARoute() {
+		RouteCache<String> cache = new RouteCache<>(10, 60_000);
+		cache.put(RouteCache.key(27.700000, 85.300000, 27.650000, 85.400000), "route");
+
+		// ~10 m north-east of the first position, same destination
+		assertEquals("route", cache.get(RouteCache.key(27.700090, 85.300090, 27.650000, 85.400000)));
+		// ~500 m away is another cell
+		assertNull(cache.get(RouteCache.key(27.704500, 85.300000, 27.650000, 85.400000)));
+		assertNotEquals(RouteCache.key(27.70, 85.30, 27.65, 85.40), RouteCache.key(27.65, 85.40, 27.70, 85.30));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedAndExpired() throws InterruptedException {
+		RouteCache<String> cache = new RouteCache<>(2, 60_000);
+		RouteCache.Key a = RouteCache.key(27.0, 85.0, 27.1, 85.1);
+		RouteCache.Key b = RouteCache.key(27.2, 85.2, 27.3, 85.3);
+		RouteCache.Key c = RouteCache.key(27.4, 85.4, 27.5, 85.5);
+		cache.put(a, "a");
+		cache.put(b, "b");
+		cache.get(a);
+		cache.put(c, "c");
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertEquals("a", cache.get(a));
+		assertNull(cache.get(b));
+
+		cache.put(b, "b", 1);
+		Thread.sleep(5);
+		assertNull(cache.get(b));
+		assertEquals(1, cache.getExpirations());
+	}
+}
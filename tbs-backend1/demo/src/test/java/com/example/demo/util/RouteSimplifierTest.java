@@ -0,0 +1,85 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Simplified routes must stay within the tolerance of the full route, and each tolerance
+ * step is computed once per cached route.
+ */
+class RouteSimplifierTest {
+
+	@Test
+	void keepsCornersAndDropsNoiseWithinTolerance() {
+		// Two straight legs with a right-angle corner at index 50, jittered by under a metre
+		Random random = new Random(11);
+		double[] lats = new double[101];
+		double[] lngs = new double[101];
+		for (int i = 0; i <= 100; i++) {
+			double jitter = (random.nextDouble() - 0.5) * 0.000008;
+			lats[i] = 27.7 + Math.min(i, 50) * 0.0001 + jitter;
+			lngs[i] = 85.3 + Math.max(0, i - 50) * 0.0001 + jitter;
+		}
+		assertArrayEquals(new int[] { 0, 50, 100 }, RouteSimplifier.keep(lats, lngs, 5));
+		assertTrue(RouteSimplifier.keep(lats, lngs, 0.01).length > 90);
+	}
+
+	@Test
+	void simplifiedVariantsStayWithinToleranceAndAreReused() {
+		Random random = new Random(5);
+		int points = 5000;
+		double[] lats = new double[points];
+		double[] lngs = new double[points];
+		lats[0] = 27.7;
+		lngs[0] = 85.3;
+		for (int i = 1; i < points; i++) {
+			lats[i] = lats[i - 1] + (random.nextDouble() - 0.3) * 0.0002;
+			lngs[i] = lngs[i - 1] + (random.nextDouble() - 0.3) * 0.0002;
+		}
+		Route route = new Route(lats, lngs, 12.5);
+
+		int previousSize = 0;
+		for (int zoom : new int[] { 10, 13, 16 }) {
+			double tolerance = RouteSimplifier.toleranceForZoom(zoom, 27.7);
+			Route simplified = route.simplify(tolerance);
+			assertSame(simplified, route.simplify(tolerance));
+			assertEquals(route.getDistanceKm(), simplified.getDistanceKm());
+			double worst = maxDeviationMeters(route, simplified);
+			assertTrue(worst <= tolerance + 0.01, "deviation " + worst + " m exceeds " + tolerance + " m");
+			assertTrue(simplified.size() < points);
+			// Closer zooms use a smaller tolerance and so keep more of the route
+			assertTrue(simplified.size() > previousSize, "zoom " + zoom + " kept " + simplified.size() + " points");
+			previousSize = simplified.size();
+		}
+		assertSame(route, route.simplify(0.1));
+	}
+
+	// Farthest distance of any full-route point from the simplified polyline, in the simplifier's projection
+	private static double maxDeviationMeters(Route full, Route simplified) {
+		double xScale = 111_320.0 * Math.cos(Math.toRadians(full.getLatitudes()[0]));
+		double worst = 0;
+		for (int i = 0; i < full.size(); i++) {
+			double px = full.getLongitudes()[i] * xScale;
+			double py = full.getLatitudes()[i] * 111_320.0;
+			double best = Double.MAX_VALUE;
+			for (int j = 1; j < simplified.size(); j++) {
+				double ax = simplified.getLongitudes()[j - 1] * xScale;
+				double ay = simplified.getLatitudes()[j - 1] * 111_320.0;
+				double bx = simplified.getLongitudes()[j] * xScale;
+				double by = simplified.getLatitudes()[j] * 111_320.0;
+				double dx = bx - ax;
+				double dy = by - ay;
+				double t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy)));
+				best = Math.min(best, Math.hypot(px - ax - t * dx, py - ay - t * dy));
+			}
+			worst = Math.max(worst, best);
+		}
+		return worst;
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.Tractor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tracking polls must not wait on the router: without a known route the first poll answers
+ * at once with a straight line, and the route fetch happens in the background. Stub
+ * providers stand in for OSRM, so no test reaches a real router.
+ */
+class TrackingMapperTest {
+
+	@Test
+	void firstPollDoesNotWaitForRouting() throws Exception {
+		// A remote router that takes longer to answer than a poll may wait
+		TrackingMapper.setRoutingProvider((fromLat, fromLng, toLat, toLng) -> CompletableFuture.supplyAsync(
+			() -> null, CompletableFuture.delayedExecutor(2, TimeUnit.SECONDS)));
+		Tractor tractor = tractor(987654L);
+
+		long started = System.nanoTime();
+		Map<String, Object> payload = TrackingMapper.buildPayload(tractor, null);
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+		assertTrue(elapsedMillis < 1000, "buildPayload took " + elapsedMillis + " ms");
+		assertEquals(2, new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(payload.get("route"))).size());
+		assertTrue((Double) payload.get("distanceKm") > 0);
+
+		Map<String, Object> encoded = TrackingMapper.buildPayload(tractor, null, TrackingMapper.RouteFormat.POLYLINE);
+		assertEquals("polyline", encoded.get("routeFormat"));
+		double[][] decoded = PolylineCodec.decode((String) encoded.get("route"));
+		assertEquals(27.7172, decoded[0][0], 1e-5);
+		assertEquals(85.4298, decoded[1][1], 1e-5);
+	}
+
+	@Test
+	void inProcessRouteIsServedOnTheSamePoll() throws Exception {
+		Route road = new Route(new double[] { 27.7172, 27.7000, 27.6800 }, new double[] { 85.3240, 85.3800, 85.4100 }, 12.6);
+		TrackingMapper.setRoutingProvider((fromLat, fromLng, toLat, toLng) -> CompletableFuture.completedFuture(road));
+
+		Tractor tractor = tractor(987655L);
+		// Not the destination the slow router of the other test may still be answering for
+		tractor.setDestinationLatitude(27.6800);
+		tractor.setDestinationLongitude(85.4100);
+		Map<String, Object> payload = TrackingMapper.buildPayload(tractor, null);
+
+		assertEquals(12.6, (Double) payload.get("distanceKm"), 1e-9);
+		assertEquals(3, new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(payload.get("route"))).size());
+	}
+
+	private static Tractor tractor(Long id) {
+		Tractor tractor = new Tractor();
+		tractor.setId(id);
+		tractor.setName("Mahindra 575");
+		tractor.setLatitude(27.7172);
+		tractor.setLongitude(85.3240);
+		tractor.setDestinationLatitude(27.6710);
+		tractor.setDestinationLongitude(85.4298);
+		return tractor;
+	}
+}